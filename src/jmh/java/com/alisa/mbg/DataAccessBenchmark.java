@@ -0,0 +1,392 @@
+package com.alisa.mbg;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.DefaultShellCallback;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * 生成代码的数据访问基准：对固定的示例表结构运行生成器，用 javax.tools 编译生成的 model / mapper / Filter，
+ * 加载生成的 mapper XML，在 MySQL 兼容模式的内存 H2 上执行 BatchPlugin 生成的语句。
+ * 每个 (操作, 列数, 批大小) 组合先预热再计时，输出 rows/s、单轮延迟分位数、每行分配字节数与堆峰值。
+ *
+ *   mvn -Pbenchmark compile exec:exec@dao
+ *   mvn -Pbenchmark compile exec:exec@dao -Ddao.args="--columns=5,50 --batch=1,100,1000 --csv=dao.csv"
+ *
+ * 示例表第一列为 BIGINT 主键，其余列在 VARCHAR / INT / TIMESTAMP / DECIMAL / BIGINT 之间轮换。
+ */
+public final class DataAccessBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:mbg-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String[] COLUMN_TYPES = { "varchar(64)", "int", "timestamp", "decimal(18,2)", "bigint" };
+
+    private static final String[] OPERATIONS = { "upsert", "upsert-batch-executor", "batchUpsert", "batchDelete" };
+
+    private int[] columnCounts = { 5, 20, 50 };
+    private int[] batchSizes = { 1, 10, 100, 1000 };
+    private int warmupRounds = 20;
+    private int rounds = 50;
+    private String csvFile;
+
+    private final List<Result> results = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        DataAccessBenchmark benchmark = new DataAccessBenchmark();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--columns=")) {
+                benchmark.columnCounts = parseInts(value);
+            } else if (arg.startsWith("--batch=")) {
+                benchmark.batchSizes = parseInts(value);
+            } else if (arg.startsWith("--warmup=")) {
+                benchmark.warmupRounds = Integer.parseInt(value);
+            } else if (arg.startsWith("--rounds=")) {
+                benchmark.rounds = Integer.parseInt(value);
+            } else if (arg.startsWith("--csv=")) {
+                benchmark.csvFile = value;
+            } else {
+                throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+        benchmark.run();
+    }
+
+    private void run() throws Exception {
+        // MyBatis 默认经 logback 输出每条 SQL 的 DEBUG 日志，会淹没被测语句本身的耗时
+        LogFactory.useNoLogging();
+        Path workDir = Files.createTempDirectory("mbg-bench-dao");
+        try {
+            PooledDataSource dataSource = new PooledDataSource("org.h2.Driver", JDBC_URL, "sa", "");
+            createSchema(dataSource);
+
+            Path outputDir = Files.createDirectories(workDir.resolve("output"));
+            generate(outputDir);
+            Path classesDir = Files.createDirectories(workDir.resolve("classes"));
+            compile(outputDir, classesDir);
+
+            try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classesDir.toUri().toURL() },
+                    DataAccessBenchmark.class.getClassLoader())) {
+                Resources.setDefaultClassLoader(classLoader);
+                SqlSessionFactory sqlSessionFactory = buildSqlSessionFactory(dataSource, outputDir);
+                for (int columns : columnCounts) {
+                    Class<?> modelClass = classLoader.loadClass("com.bench.model.Sample" + columns);
+                    Class<?> mapperClass = classLoader.loadClass("com.bench.mapper.Sample" + columns + "Mapper");
+                    for (int batchSize : batchSizes) {
+                        for (String operation : OPERATIONS) {
+                            truncate(dataSource, columns);
+                            results.add(measure(sqlSessionFactory, operation, columns, batchSize, modelClass,
+                                    mapperClass));
+                        }
+                    }
+                }
+            } finally {
+                Resources.setDefaultClassLoader(null);
+                dataSource.forceCloseAll();
+            }
+            report();
+        } finally {
+            MbgApplication.deleteFolder(workDir.toFile());
+        }
+    }
+
+    private void createSchema(PooledDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int columns : columnCounts) {
+                StringBuilder ddl = new StringBuilder("create table tb_sample_").append(columns)
+                        .append(" (id bigint not null primary key");
+                for (int c = 1; c < columns; c++) {
+                    ddl.append(", col_").append(c).append(' ').append(COLUMN_TYPES[(c - 1) % COLUMN_TYPES.length]);
+                }
+                statement.execute("drop table if exists tb_sample_" + columns);
+                statement.execute(ddl.append(')').toString());
+            }
+        }
+    }
+
+    /**
+     * 与正式运行相同：MBG 读取 H2 的表结构，VelocityCodeGeneratorPlugin 与 BatchPlugin 一起参与生成
+     */
+    private void generate(Path outputDir) throws Exception {
+        Context context = SyntheticSchema.newContext(outputDir.toString(), true, 0);
+        JDBCConnectionConfiguration jdbcConnection = new JDBCConnectionConfiguration();
+        jdbcConnection.setDriverClass("org.h2.Driver");
+        jdbcConnection.setConnectionURL(JDBC_URL);
+        jdbcConnection.setUserId("sa");
+        jdbcConnection.setPassword("");
+        context.setJdbcConnectionConfiguration(jdbcConnection);
+        for (int columns : columnCounts) {
+            TableConfiguration tableConfiguration = new TableConfiguration(context);
+            tableConfiguration.setTableName("tb_sample_" + columns);
+            tableConfiguration.setDomainObjectName("Sample" + columns);
+            context.addTableConfiguration(tableConfiguration);
+        }
+
+        Configuration configuration = new Configuration();
+        configuration.addContext(context);
+        List<String> warnings = new ArrayList<>();
+        new MyBatisGenerator(configuration, new DefaultShellCallback(true), warnings).generate(null);
+        for (String warning : warnings) {
+            System.out.println(warning);
+        }
+    }
+
+    /**
+     * 只编译数据访问相关的 model / mapper / Filter，Controller、Service 依赖 Spring，不在这里编译
+     */
+    private void compile(Path outputDir, Path classesDir) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList("-proc:none", "-encoding", "UTF-8",
+                "-classpath", System.getProperty("java.class.path"), "-d", classesDir.toString()));
+        for (String pkg : new String[] { "model", "mapper", "dto" }) {
+            try (Stream<Path> files = Files.list(outputDir.resolve("com/bench/" + pkg))) {
+                files.filter(file -> file.toString().endsWith(".java")).map(Path::toString).forEach(arguments::add);
+            }
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null || compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("生成代码编译失败");
+        }
+    }
+
+    private SqlSessionFactory buildSqlSessionFactory(PooledDataSource dataSource, Path outputDir) throws IOException {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration(
+                new Environment("bench", new JdbcTransactionFactory(), dataSource));
+        List<Path> mapperFiles;
+        try (Stream<Path> files = Files.walk(outputDir.resolve("com/bench/mapper"))) {
+            mapperFiles = files.filter(file -> file.toString().endsWith(".xml")).collect(Collectors.toList());
+        }
+        for (Path mapperFile : mapperFiles) {
+            try (InputStream in = Files.newInputStream(mapperFile)) {
+                new XMLMapperBuilder(in, configuration, mapperFile.toString(), configuration.getSqlFragments())
+                        .parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    private void truncate(PooledDataSource dataSource, int columns) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("truncate table tb_sample_" + columns);
+        }
+    }
+
+    /**
+     * 一轮 = 一个事务内处理 batchSize 行；每轮主键区间前移半个批次，upsert 同时覆盖插入与更新两条路径
+     */
+    private Result measure(SqlSessionFactory sqlSessionFactory, String operation, int columns, int batchSize,
+            Class<?> modelClass, Class<?> mapperClass) throws Exception {
+        Method upsert = mapperClass.getMethod("upsert", modelClass);
+        Method batchUpsert = mapperClass.getMethod("batchUpsert", List.class);
+        Method batchDelete = mapperClass.getMethod("batchDelete", List.class);
+        int step = Math.max(1, batchSize / 2);
+
+        long[] latencies = new long[rounds];
+        long allocatedBytes = 0;
+        resetHeapPeak();
+        for (int round = 0; round < warmupRounds + rounds; round++) {
+            List<Object> rows = newRows(modelClass, (long) round * step, batchSize);
+            List<Object> ids = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                ids.add((long) round * step + i);
+            }
+            if ("batchDelete".equals(operation)) {
+                try (SqlSession session = sqlSessionFactory.openSession()) {
+                    batchUpsert.invoke(session.getMapper(mapperClass), rows);
+                    session.commit();
+                }
+            }
+
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            ExecutorType executorType = "upsert-batch-executor".equals(operation) ? ExecutorType.BATCH
+                    : ExecutorType.SIMPLE;
+            try (SqlSession session = sqlSessionFactory.openSession(executorType)) {
+                Object mapper = session.getMapper(mapperClass);
+                switch (operation) {
+                case "upsert":
+                case "upsert-batch-executor":
+                    for (Object row : rows) {
+                        upsert.invoke(mapper, row);
+                    }
+                    session.flushStatements();
+                    break;
+                case "batchUpsert":
+                    batchUpsert.invoke(mapper, rows);
+                    break;
+                default:
+                    batchDelete.invoke(mapper, ids);
+                    break;
+                }
+                session.commit();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= warmupRounds) {
+                latencies[round - warmupRounds] = elapsed;
+                allocatedBytes += allocatedBytes() - allocatedBefore;
+            }
+        }
+        return new Result(operation, columns, batchSize, (long) rounds * batchSize, latencies,
+                allocatedBytes, heapPeak());
+    }
+
+    /**
+     * 按 setter 的参数类型填充每一列
+     */
+    private static List<Object> newRows(Class<?> modelClass, long firstId, int count) throws Exception {
+        List<Method> setters = new ArrayList<>();
+        for (Method method : modelClass.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterCount() == 1) {
+                setters.add(method);
+            }
+        }
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = firstId + i;
+            Object row = modelClass.getDeclaredConstructor().newInstance();
+            for (Method setter : setters) {
+                setter.invoke(row, sampleValue(setter.getParameterTypes()[0], id));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Object sampleValue(Class<?> type, long id) {
+        if (type == Long.class) {
+            return id;
+        } else if (type == Integer.class) {
+            return (int) id;
+        } else if (type == Date.class) {
+            return new Date(1_700_000_000_000L + id * 1000);
+        } else if (type == BigDecimal.class) {
+            return BigDecimal.valueOf(id, 2);
+        }
+        return "value-" + id;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    private static void resetHeapPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private void report() throws IOException {
+        String header = String.format("%-22s %5s %6s %12s %9s %9s %9s %9s %13s %13s", "operation", "cols", "batch",
+                "rows/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "alloc B/row", "heap peak MB");
+        System.out.println(header);
+        for (Result result : results) {
+            System.out.println(String.format("%-22s %5d %6d %12.0f %9.3f %9.3f %9.3f %9.3f %13d %13.1f",
+                    result.operation, result.columns, result.batchSize, result.rowsPerSecond(),
+                    result.percentileMillis(50), result.percentileMillis(95), result.percentileMillis(99),
+                    result.percentileMillis(100), result.allocatedBytes / result.rows,
+                    result.heapPeakBytes / (1024.0 * 1024.0)));
+        }
+        if (csvFile != null) {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(csvFile),
+                    StandardCharsets.UTF_8))) {
+                writer.println("operation,columns,batch,rows_per_sec,p50_ms,p95_ms,p99_ms,max_ms,alloc_bytes_per_row,"
+                        + "heap_peak_bytes");
+                for (Result result : results) {
+                    writer.println(String.join(",", result.operation, String.valueOf(result.columns),
+                            String.valueOf(result.batchSize), String.format("%.0f", result.rowsPerSecond()),
+                            String.format("%.3f", result.percentileMillis(50)),
+                            String.format("%.3f", result.percentileMillis(95)),
+                            String.format("%.3f", result.percentileMillis(99)),
+                            String.format("%.3f", result.percentileMillis(100)),
+                            String.valueOf(result.allocatedBytes / result.rows),
+                            String.valueOf(result.heapPeakBytes)));
+                }
+            }
+        }
+    }
+
+    private static int[] parseInts(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static final class Result {
+
+        final String operation;
+        final int columns;
+        final int batchSize;
+        final long rows;
+        final long[] latencies;
+        final long allocatedBytes;
+        final long heapPeakBytes;
+
+        Result(String operation, int columns, int batchSize, long rows, long[] latencies, long allocatedBytes,
+                long heapPeakBytes) {
+            this.operation = operation;
+            this.columns = columns;
+            this.batchSize = batchSize;
+            this.rows = rows;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.allocatedBytes = allocatedBytes;
+            this.heapPeakBytes = heapPeakBytes;
+        }
+
+        double rowsPerSecond() {
+            return rows / (Arrays.stream(latencies).sum() / 1e9);
+        }
+
+        double percentileMillis(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
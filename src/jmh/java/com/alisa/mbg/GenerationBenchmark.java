@@ -0,0 +1,129 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.config.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 端到端生成：插件初始化（模板解析）、MBG 代码生成与全部插件钩子、模板渲染，
+ * generateAndWrite 再加上 DefaultJavaFormatter / XML 格式化与写文件，两者之差即格式化与写出的开销。
+ * mode=full 每次调用前清空输出目录；mode=incremental 保留上一次的产物与清单，测量增量生成。
+ * sink=directory 与 MbgApplication 相同，暂存后提交到输出目录；sink=memory 只写内存，两者之差即磁盘写出的开销。
+ * introspection 由 SyntheticSchema 代替，在每次调用前构造，不计入耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GenerationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int tables;
+
+    @Param({ "5", "50", "200" })
+    int columns;
+
+    @Param({ "full", "incremental" })
+    String mode;
+
+    @Param({ "0", "4" })
+    int renderThreads;
+
+    @Param({ "directory", "memory" })
+    String sink;
+
+    private File outputDir;
+    private Context context;
+
+    @Setup(Level.Trial)
+    public void createOutputDir() throws Exception {
+        outputDir = Files.createTempDirectory("mbg-bench-e2e").toFile();
+    }
+
+    /**
+     * Context 与 IntrospectedTable 在生成过程中会累积状态，每次调用都重新构造
+     */
+    @Setup(Level.Invocation)
+    public void prepareContext() {
+        if ("full".equals(mode)) {
+            MbgApplication.deleteFolder(outputDir);
+            outputDir.mkdirs();
+        }
+        context = SyntheticSchema.newContext(outputDir.getPath(), true, renderThreads);
+        SyntheticSchema.addTables(context, tables, columns);
+        OutputSink.use("memory".equals(sink) ? new MemorySink() : new DirectorySink(null, true));
+    }
+
+    /**
+     * generate() 不提交，丢弃暂存的临时文件；generateAndWrite() 已提交，这里没有需要丢弃的
+     */
+    @TearDown(Level.Invocation)
+    public void discardPending() {
+        OutputSink.current().abort();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() {
+        OutputSink.use(new DirectorySink(null, false));
+        MbgApplication.deleteFolder(outputDir);
+    }
+
+    @Benchmark
+    public int generate() throws InterruptedException {
+        List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+        List<GeneratedXmlFile> xmlFiles = new ArrayList<>();
+        context.generateFiles(new ProgressCallback() {}, javaFiles, xmlFiles, new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>());
+        return javaFiles.size() + xmlFiles.size();
+    }
+
+    /**
+     * 与 MbgApplication 相同的写出方式：格式化后经 OutputSink 暂存，仅内容变化的文件在提交时替换
+     */
+    @Benchmark
+    public int generateAndWrite() throws Exception {
+        List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+        List<GeneratedXmlFile> xmlFiles = new ArrayList<>();
+        context.generateFiles(new ProgressCallback() {}, javaFiles, xmlFiles, new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>());
+
+        OutputSink output = OutputSink.current();
+        int written = 0;
+        for (GeneratedJavaFile file : javaFiles) {
+            File directory = new File(file.getTargetProject(), file.getTargetPackage().replace('.', File.separatorChar));
+            if (output.write(new File(directory, file.getFileName()), file.getFormattedContent())) {
+                written++;
+            }
+        }
+        for (GeneratedXmlFile file : xmlFiles) {
+            File directory = new File(file.getTargetProject(), file.getTargetPackage().replace('.', File.separatorChar));
+            if (output.write(new File(directory, file.getFileName()), file.getFormattedContent())) {
+                written++;
+            }
+        }
+        output.commit();
+        return written;
+    }
+}
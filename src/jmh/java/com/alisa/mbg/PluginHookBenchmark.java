@@ -0,0 +1,154 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.ProgressCallback;
+import org.mybatis.generator.api.dom.java.CompilationUnit;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.XmlConstants;
+import org.mybatis.generator.config.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 单独测量每个插件钩子，一次操作 = 对全部表各调用一次该钩子，
+ * 吞吐量即每秒能处理多少遍整个 schema。
+ * 钩子的输入（model 类、Example 类）由不挂插件的 MBG 预先生成；
+ * Interface / Document 会被插件修改，因此每次调用都新建一个空的。
+ * 写文件走默认的 OutputSink（立即写入目录），首轮之后内容不变只做比较，不再重写。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PluginHookBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int tables;
+
+    @Param({ "5", "50", "200" })
+    int columns;
+
+    private File outputDir;
+    private Context context;
+    private List<IntrospectedTable> introspectedTables;
+    private TopLevelClass[] modelClasses;
+    private TopLevelClass[] exampleClasses;
+
+    private VelocityCodeGeneratorPlugin velocityPlugin;
+    private BatchPlugin batchPlugin;
+
+    @Setup(Level.Trial)
+    public void prepareSchema() throws Exception {
+        outputDir = Files.createTempDirectory("mbg-bench-hooks").toFile();
+        context = SyntheticSchema.newContext(outputDir.getPath(), false, 0);
+        SyntheticSchema.addTables(context, tables, columns);
+
+        List<GeneratedJavaFile> javaFiles = new ArrayList<>();
+        context.generateFiles(new ProgressCallback() {}, javaFiles, new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>());
+        Map<String, CompilationUnit> units = new HashMap<>();
+        for (GeneratedJavaFile javaFile : javaFiles) {
+            CompilationUnit unit = javaFile.getCompilationUnit();
+            units.put(unit.getType().getFullyQualifiedName(), unit);
+        }
+
+        introspectedTables = context.getIntrospectedTables();
+        modelClasses = new TopLevelClass[introspectedTables.size()];
+        exampleClasses = new TopLevelClass[introspectedTables.size()];
+        for (int i = 0; i < introspectedTables.size(); i++) {
+            IntrospectedTable introspectedTable = introspectedTables.get(i);
+            modelClasses[i] = (TopLevelClass) units.get(introspectedTable.getBaseRecordType());
+            exampleClasses[i] = (TopLevelClass) units.get(introspectedTable.getExampleType());
+        }
+    }
+
+    /**
+     * 插件实例保存了已生成的表名等状态，每轮迭代重新创建，避免跨迭代累积
+     */
+    @Setup(Level.Iteration)
+    public void createPlugins() {
+        velocityPlugin = new VelocityCodeGeneratorPlugin();
+        velocityPlugin.setContext(context);
+        velocityPlugin.setProperties(SyntheticSchema.velocityProperties(outputDir.getPath(), 0));
+        velocityPlugin.validate(new ArrayList<>());
+
+        batchPlugin = new BatchPlugin();
+        batchPlugin.setContext(context);
+        batchPlugin.setProperties(new Properties());
+        batchPlugin.validate(new ArrayList<>());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() {
+        MbgApplication.deleteFolder(outputDir);
+    }
+
+    @Benchmark
+    public void clientGenerated(Blackhole blackhole) {
+        for (IntrospectedTable introspectedTable : introspectedTables) {
+            Interface mapper = new Interface(new FullyQualifiedJavaType(introspectedTable.getMyBatis3JavaMapperType()));
+            velocityPlugin.clientGenerated(mapper, introspectedTable);
+            batchPlugin.clientGenerated(mapper, introspectedTable);
+            blackhole.consume(mapper);
+        }
+    }
+
+    @Benchmark
+    public void sqlMapDocumentGenerated(Blackhole blackhole) {
+        for (IntrospectedTable introspectedTable : introspectedTables) {
+            Document document = new Document(XmlConstants.MYBATIS3_MAPPER_PUBLIC_ID,
+                    XmlConstants.MYBATIS3_MAPPER_SYSTEM_ID);
+            document.setRootElement(new XmlElement("mapper"));
+            batchPlugin.sqlMapDocumentGenerated(document, introspectedTable);
+            blackhole.consume(document);
+        }
+    }
+
+    /**
+     * Controller / Service / ServiceImpl / TS model 四个模板的渲染与写出
+     */
+    @Benchmark
+    public void modelBaseRecordClassGenerated(Blackhole blackhole) {
+        for (int i = 0; i < modelClasses.length; i++) {
+            blackhole.consume(velocityPlugin.modelBaseRecordClassGenerated(modelClasses[i], introspectedTables.get(i)));
+        }
+    }
+
+    /**
+     * 即 generateCustomExample：复制 Example 为 Filter 类，经 DefaultJavaFormatter 格式化后写出
+     */
+    @Benchmark
+    public void modelExampleClassGenerated(Blackhole blackhole) {
+        for (int i = 0; i < exampleClasses.length; i++) {
+            blackhole.consume(velocityPlugin.modelExampleClassGenerated(exampleClasses[i], introspectedTables.get(i)));
+        }
+    }
+}
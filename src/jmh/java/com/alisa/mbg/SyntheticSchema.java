@@ -0,0 +1,165 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.config.CommentGeneratorConfiguration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+import org.mybatis.generator.config.JavaModelGeneratorConfiguration;
+import org.mybatis.generator.config.ModelType;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.config.SqlMapGeneratorConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.ObjectFactory;
+import org.mybatis.generator.internal.util.JavaBeansUtil;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/*
+ * 不连接数据库，按表数、列数直接构造 IntrospectedTable，代替 introspectTables 的结果。
+ * 第一列是单列 BIGINT 主键，其余列在常见类型之间轮换，每 10 列有一个 LONGVARCHAR 大字段；
+ * 每 10 张表开启一次 cacheEnabled，让可选模板分支也参与渲染。
+ */
+final class SyntheticSchema {
+
+    private static final String BASE_PACKAGE = "com.bench";
+
+    private SyntheticSchema() {
+    }
+
+    /**
+     * 与 generatorConfig_Example.xml 相同结构的 context，withPlugins 为 false 时不挂插件
+     */
+    static Context newContext(String targetProject, boolean withPlugins, int renderThreads) {
+        Context context = new Context(ModelType.CONDITIONAL);
+        context.setId("bench");
+        context.setTargetRuntime("MyBatis3");
+
+        CommentGeneratorConfiguration commentGenerator = new CommentGeneratorConfiguration();
+        commentGenerator.addProperty("suppressAllComments", "true");
+        context.setCommentGeneratorConfiguration(commentGenerator);
+
+        JavaModelGeneratorConfiguration modelGenerator = new JavaModelGeneratorConfiguration();
+        modelGenerator.setTargetPackage(BASE_PACKAGE + ".model");
+        modelGenerator.setTargetProject(targetProject);
+        context.setJavaModelGeneratorConfiguration(modelGenerator);
+
+        SqlMapGeneratorConfiguration sqlMapGenerator = new SqlMapGeneratorConfiguration();
+        sqlMapGenerator.setTargetPackage(BASE_PACKAGE + ".mapper.xml");
+        sqlMapGenerator.setTargetProject(targetProject);
+        sqlMapGenerator.addProperty("enableSubPackages", "true");
+        context.setSqlMapGeneratorConfiguration(sqlMapGenerator);
+
+        JavaClientGeneratorConfiguration clientGenerator = new JavaClientGeneratorConfiguration();
+        clientGenerator.setConfigurationType("XMLMAPPER");
+        clientGenerator.setTargetPackage(BASE_PACKAGE + ".mapper");
+        clientGenerator.setTargetProject(targetProject);
+        context.setJavaClientGeneratorConfiguration(clientGenerator);
+
+        if (withPlugins) {
+            PluginConfiguration velocity = new PluginConfiguration();
+            velocity.setConfigurationType(VelocityCodeGeneratorPlugin.class.getName());
+            for (Map.Entry<Object, Object> entry : velocityProperties(targetProject, renderThreads).entrySet()) {
+                velocity.addProperty((String) entry.getKey(), (String) entry.getValue());
+            }
+            context.addPluginConfiguration(velocity);
+
+            PluginConfiguration batch = new PluginConfiguration();
+            batch.setConfigurationType(BatchPlugin.class.getName());
+            context.addPluginConfiguration(batch);
+        }
+        return context;
+    }
+
+    static Properties velocityProperties(String targetProject, int renderThreads) {
+        Properties properties = new Properties();
+        properties.setProperty("dtoPackage", BASE_PACKAGE + ".dto");
+        properties.setProperty("modelPackage", BASE_PACKAGE + ".model");
+        properties.setProperty("mapperPackage", BASE_PACKAGE + ".mapper");
+        properties.setProperty("enumPackage", BASE_PACKAGE + ".enums");
+        properties.setProperty("targetControllerPackage", BASE_PACKAGE + ".controller");
+        properties.setProperty("targetServicePackage", BASE_PACKAGE + ".service");
+        properties.setProperty("targetServiceImplPackage", BASE_PACKAGE + ".service.serviceImpl");
+        properties.setProperty("targetProject", targetProject);
+        properties.setProperty("renderThreads", String.valueOf(renderThreads));
+        return properties;
+    }
+
+    /**
+     * 向 context 加入 tables 张表，每张表 columns 列（含主键列）
+     */
+    static void addTables(Context context, int tables, int columns) {
+        for (int t = 0; t < tables; t++) {
+            String tableName = "tb_bench_" + t;
+            String domainObjectName = "Bench" + t;
+
+            TableConfiguration tableConfiguration = new TableConfiguration(context);
+            tableConfiguration.setTableName(tableName);
+            tableConfiguration.setDomainObjectName(domainObjectName);
+            if (t % 10 == 0) {
+                tableConfiguration.addProperty("cacheEnabled", "true");
+            }
+            context.addTableConfiguration(tableConfiguration);
+
+            FullyQualifiedTable table = new FullyQualifiedTable(null, null, tableName, domainObjectName, null,
+                    false, null, null, null, false, null, context);
+            IntrospectedTable introspectedTable = ObjectFactory.createIntrospectedTable(tableConfiguration, table,
+                    context);
+            introspectedTable.addColumn(newColumn(context, "id", Types.BIGINT, "BIGINT", 20, 0, "java.lang.Long", false));
+            for (int c = 1; c < Math.max(1, columns); c++) {
+                introspectedTable.addColumn(newColumn(context, c));
+            }
+            introspectedTable.addPrimaryKeyColumn("id");
+            // 索引同样在这里给出：主键索引加第一列上的普通索引，initialized 不再连接数据库读取
+            List<TableIndexes.Index> indexes = new ArrayList<>();
+            indexes.add(new TableIndexes.Index("PRIMARY", true, introspectedTable.getPrimaryKeyColumns()));
+            if (columns > 1) {
+                indexes.add(new TableIndexes.Index("idx_col_1", false,
+                        List.of(introspectedTable.getNonPrimaryKeyColumns().get(0))));
+            }
+            introspectedTable.setAttribute(TableIndexes.ATTRIBUTE, indexes);
+            context.getIntrospectedTables().add(introspectedTable);
+        }
+    }
+
+    private static IntrospectedColumn newColumn(Context context, int index) {
+        String name = "col_" + index;
+        if (index % 10 == 9) {
+            return newColumn(context, name, Types.LONGVARCHAR, "LONGVARCHAR", 65535, 0, "java.lang.String", true);
+        }
+        switch (index % 6) {
+        case 0:
+            return newColumn(context, name, Types.INTEGER, "INTEGER", 10, 0, "java.lang.Integer", true);
+        case 1:
+            return newColumn(context, name, Types.VARCHAR, "VARCHAR", 64, 0, "java.lang.String", true);
+        case 2:
+            return newColumn(context, name, Types.TIMESTAMP, "TIMESTAMP", 19, 0, "java.util.Date", true);
+        case 3:
+            return newColumn(context, name, Types.DECIMAL, "DECIMAL", 18, 2, "java.math.BigDecimal", true);
+        case 4:
+            return newColumn(context, name, Types.BIT, "BIT", 1, 0, "java.lang.Boolean", false);
+        default:
+            return newColumn(context, name, Types.BIGINT, "BIGINT", 20, 0, "java.lang.Long", true);
+        }
+    }
+
+    private static IntrospectedColumn newColumn(Context context, String name, int jdbcType, String jdbcTypeName,
+            int length, int scale, String javaType, boolean nullable) {
+        IntrospectedColumn column = ObjectFactory.createIntrospectedColumn(context);
+        column.setActualColumnName(name);
+        column.setJdbcType(jdbcType);
+        column.setJdbcTypeName(jdbcTypeName);
+        column.setLength(length);
+        column.setScale(scale);
+        column.setNullable(nullable);
+        column.setFullyQualifiedJavaType(new FullyQualifiedJavaType(javaType));
+        column.setJavaProperty(JavaBeansUtil.getCamelCaseString(name, false));
+        return column;
+    }
+}
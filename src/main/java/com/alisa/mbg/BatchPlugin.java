@@ -8,17 +8,57 @@ import org.mybatis.generator.api.dom.xml.Attribute;
 import org.mybatis.generator.api.dom.xml.Document;
 import org.mybatis.generator.api.dom.xml.TextElement;
 import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities;
 
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 import java.util.stream.Collectors;
 
 public class BatchPlugin extends PluginAdapter {
 
+    private static final int LOB_ESTIMATE_BYTES = 64 * 1024;
+
+    /**
+     * IntrospectedTable 属性：摘要查询排除的大字段列表，由 initialized 写入，VelocityCodeGeneratorPlugin 读取
+     */
+    static final String SUMMARY_EXCLUDED_COLUMNS = "mbg.summaryExcludedColumns";
+
+    /**
+     * IntrospectedTable 属性：表级属性 versionColumn 指定的版本列（version / updated_at），条件 GET 据此计算 ETag
+     */
+    static final String VERSION_COLUMN = "mbg.versionColumn";
+
+    private String cursorFetchSize;
+    private int summaryMaxLength;
+    private List<String> warnings = new ArrayList<>();
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        // MySQL Connector/J 只有 fetchSize = Integer.MIN_VALUE 时才逐行流式读取，其它驱动可配置为正数
+        cursorFetchSize = properties.getProperty("cursorFetchSize", String.valueOf(Integer.MIN_VALUE));
+        // 字符、二进制列长度超过该值时视为大字段，与 TEXT / BLOB 一起从摘要查询中排除；表级属性可单独覆盖
+        summaryMaxLength = Integer.parseInt(properties.getProperty("summaryMaxLength", "1024"));
+    }
+
     @Override
     public boolean validate(List<String> warnings) {
+        // 与 MyBatisGenerator 的警告列表是同一个，生成结束后统一输出
+        this.warnings = warnings;
         return true;
     }
 
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        introspectedTable.setAttribute(SUMMARY_EXCLUDED_COLUMNS, findLargeColumns(introspectedTable));
+        IntrospectedColumn versionColumn = findVersionColumn(introspectedTable);
+        if (versionColumn != null) {
+            introspectedTable.setAttribute(VERSION_COLUMN, versionColumn);
+        }
+    }
+
     /**
      * Java 接口增强
      */
@@ -39,12 +79,56 @@ public class BatchPlugin extends PluginAdapter {
         FullyQualifiedJavaType listIdType = FullyQualifiedJavaType.getNewListInstance();
         listIdType.addTypeArgument(pkType);
 
+        FullyQualifiedJavaType cursorType = new FullyQualifiedJavaType("org.apache.ibatis.cursor.Cursor");
+        cursorType.addTypeArgument(new FullyQualifiedJavaType(recordType));
+
         interfaze.addImportedType(listEntityType);
         interfaze.addImportedType(pkType);
+        interfaze.addImportedType(cursorType);
+        interfaze.addImportedType(new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param"));
 
         interfaze.addMethod(generateMethod("upsert", new Parameter(new FullyQualifiedJavaType(recordType), "record")));
         interfaze.addMethod(generateMethod("batchUpsert", new Parameter(listEntityType, "list", "@Param(\"list\")")));
         interfaze.addMethod(generateMethod("batchDelete", new Parameter(listIdType, "list", "@Param(\"list\")")));
+        interfaze.addMethod(generateMethod("selectCursor", cursorType));
+        if (supportsMultiGet(introspectedTable)) {
+            interfaze.addMethod(generateMethod("selectByIds", listEntityType,
+                    new Parameter(listIdType, "list", "@Param(\"list\")")));
+        }
+        if (supportsKeyset(introspectedTable)) {
+            interfaze.addMethod(generateMethod("selectAfter", listEntityType,
+                    new Parameter(pkType, "lastId", "@Param(\"lastId\")"),
+                    new Parameter(FullyQualifiedJavaType.getIntInstance(), "limit", "@Param(\"limit\")")));
+        }
+        if (supportsSummary(introspectedTable)) {
+            interfaze.addMethod(generateMethod("selectSummary", listEntityType));
+            interfaze.addMethod(generateMethod("selectSummaryCursor", cursorType));
+            if (supportsKeyset(introspectedTable)) {
+                interfaze.addMethod(generateMethod("selectSummaryAfter", listEntityType,
+                        new Parameter(pkType, "lastId", "@Param(\"lastId\")"),
+                        new Parameter(FullyQualifiedJavaType.getIntInstance(), "limit", "@Param(\"limit\")")));
+            }
+        }
+        for (TableIndexes.Finder finder : TableIndexes.finders(introspectedTable)) {
+            List<Parameter> parameters = new ArrayList<>();
+            for (IntrospectedColumn column : finder.columns) {
+                interfaze.addImportedType(column.getFullyQualifiedJavaType());
+                parameters.add(new Parameter(column.getFullyQualifiedJavaType(), column.getJavaProperty(),
+                        "@Param(\"" + column.getJavaProperty() + "\")"));
+            }
+            interfaze.addMethod(generateMethod(finder.methodName,
+                    finder.unique ? new FullyQualifiedJavaType(recordType) : listEntityType,
+                    parameters.toArray(new Parameter[0])));
+        }
+        IntrospectedColumn versionColumn = versionColumn(introspectedTable);
+        if (versionColumn != null) {
+            interfaze.addMethod(generateMethod("selectVersionStamp", FullyQualifiedJavaType.getStringInstance()));
+            if (supportsVersionById(introspectedTable)) {
+                interfaze.addImportedType(versionColumn.getFullyQualifiedJavaType());
+                interfaze.addMethod(generateMethod("selectVersionById", versionColumn.getFullyQualifiedJavaType(),
+                        new Parameter(pkType, "id")));
+            }
+        }
 
         return true;
     }
@@ -56,12 +140,44 @@ public class BatchPlugin extends PluginAdapter {
         List<IntrospectedColumn> pkColumns = introspectedTable.getPrimaryKeyColumns();
 
         document.getRootElement().addElement(buildBatchUpsertXml(tableName, allColumns, introspectedTable));
+        document.getRootElement().addElement(buildSelectCursorXml(tableName, introspectedTable));
+        if (supportsKeyset(introspectedTable)) {
+            document.getRootElement().addElement(buildSelectAfterXml(tableName, pkColumns.get(0), introspectedTable));
+        }
+        if (supportsSummary(introspectedTable)) {
+            List<IntrospectedColumn> summaryColumns = summaryColumns(introspectedTable);
+            document.getRootElement().addElement(buildSummaryColumnListXml(summaryColumns));
+            document.getRootElement().addElement(buildSummaryResultMapXml(summaryColumns, introspectedTable));
+            document.getRootElement().addElement(buildSelectSummaryXml("selectSummary", tableName));
+            XmlElement selectSummaryCursor = buildSelectSummaryXml("selectSummaryCursor", tableName);
+            addCursorAttributes(selectSummaryCursor);
+            document.getRootElement().addElement(selectSummaryCursor);
+            if (supportsKeyset(introspectedTable)) {
+                XmlElement selectSummaryAfter = buildSelectSummaryXml("selectSummaryAfter", tableName);
+                addKeysetClause(selectSummaryAfter, pkColumns.get(0));
+                document.getRootElement().addElement(selectSummaryAfter);
+            }
+        }
+        for (TableIndexes.Finder finder : TableIndexes.finders(introspectedTable)) {
+            document.getRootElement().addElement(buildFinderXml(tableName, finder, introspectedTable));
+        }
+        IntrospectedColumn versionColumn = versionColumn(introspectedTable);
+        if (versionColumn != null) {
+            document.getRootElement().addElement(buildSelectVersionStampXml(tableName, versionColumn));
+            if (supportsVersionById(introspectedTable)) {
+                document.getRootElement().addElement(buildSelectVersionByIdXml(tableName, versionColumn,
+                        pkColumns.get(0)));
+            }
+        }
 
         if (pkColumns != null && !pkColumns.isEmpty()) {
             document.getRootElement().addElement(buildUpsertXml(tableName, allColumns, introspectedTable));
             document.getRootElement().addElement(buildBatchDeleteXml(tableName, pkColumns.get(0)));
         } else {
-            System.err.println(">>> [BatchPlugin] 跳过表 " + tableName + " 的主键方法，未识别到主键。");
+            warnings.add("[BatchPlugin] 跳过表 " + tableName + " 的主键方法，未识别到主键。");
+        }
+        if (supportsMultiGet(introspectedTable)) {
+            document.getRootElement().addElement(buildSelectByIdsXml(tableName, pkColumns.get(0), introspectedTable));
         }
         return true;
     }
@@ -74,7 +190,11 @@ public class BatchPlugin extends PluginAdapter {
         xml.addAttribute(new Attribute("parameterType", "java.util.List"));
 
         xml.addElement(new TextElement("delete from " + tableName + " where " + pk.getActualColumnName() + " in "));
+        xml.addElement(buildIdForeach());
+        return xml;
+    }
 
+    private XmlElement buildIdForeach() {
         XmlElement foreach = new XmlElement("foreach");
         foreach.addAttribute(new Attribute("collection", "list"));
         foreach.addAttribute(new Attribute("item", "id")); // 既然传的是 ID 列表，item 就叫 id
@@ -84,11 +204,173 @@ public class BatchPlugin extends PluginAdapter {
 
         // 【关键】因为参数是 List<String>，直接使用 #{id} 即可
         foreach.addElement(new TextElement("#{id}"));
+        return foreach;
+    }
 
-        xml.addElement(foreach);
+    /**
+     * 按主键批量查询，与 batchDelete 一样由 Service 按 InListBuckets 档位补齐 id 列表
+     */
+    private XmlElement buildSelectByIdsXml(String tableName, IntrospectedColumn pk, IntrospectedTable table) {
+        XmlElement xml = buildSelectAllColumns("selectByIds", tableName, table);
+        xml.addElement(new TextElement("where " + pk.getActualColumnName() + " in "));
+        xml.addElement(buildIdForeach());
+        return xml;
+    }
+
+    private XmlElement buildSelectCursorXml(String tableName, IntrospectedTable table) {
+        XmlElement xml = buildSelectAllColumns("selectCursor", tableName, table);
+        addCursorAttributes(xml);
+        return xml;
+    }
+
+    private void addCursorAttributes(XmlElement xml) {
+        xml.addAttribute(new Attribute("fetchSize", cursorFetchSize));
+        xml.addAttribute(new Attribute("resultSetType", "FORWARD_ONLY"));
+    }
+
+    /**
+     * 基于主键的 keyset 分页：where pk > #{lastId} order by pk limit #{limit}，
+     * 翻页成本与页码无关，不会像 offset 那样越翻越慢
+     */
+    private XmlElement buildSelectAfterXml(String tableName, IntrospectedColumn pk, IntrospectedTable table) {
+        XmlElement xml = buildSelectAllColumns("selectAfter", tableName, table);
+        addKeysetClause(xml, pk);
+        return xml;
+    }
+
+    private void addKeysetClause(XmlElement xml, IntrospectedColumn pk) {
+        XmlElement ifElement = new XmlElement("if");
+        ifElement.addAttribute(new Attribute("test", "lastId != null"));
+        ifElement.addElement(new TextElement("where " + pk.getActualColumnName() + " &gt; #{lastId,jdbcType="
+                + pk.getJdbcTypeName() + "}"));
+        xml.addElement(ifElement);
+        xml.addElement(new TextElement("order by " + pk.getActualColumnName() + " limit #{limit}"));
+    }
+
+    /**
+     * 摘要查询的列清单，与 Base_Column_List 写法相同，只是去掉了大字段
+     */
+    private XmlElement buildSummaryColumnListXml(List<IntrospectedColumn> columns) {
+        XmlElement xml = new XmlElement("sql");
+        xml.addAttribute(new Attribute("id", "Summary_Column_List"));
+        xml.addElement(new TextElement(columns.stream()
+                .map(MyBatis3FormattingUtilities::getSelectListPhrase)
+                .collect(Collectors.joining(", "))));
+        return xml;
+    }
+
+    private XmlElement buildSummaryResultMapXml(List<IntrospectedColumn> columns, IntrospectedTable table) {
+        XmlElement xml = new XmlElement("resultMap");
+        xml.addAttribute(new Attribute("id", "SummaryResultMap"));
+        xml.addAttribute(new Attribute("type", table.getBaseRecordType()));
+        for (IntrospectedColumn column : columns) {
+            XmlElement item = new XmlElement(isPrimaryKey(column, table) ? "id" : "result");
+            item.addAttribute(new Attribute("column",
+                    MyBatis3FormattingUtilities.getRenamedColumnNameForResultMap(column)));
+            item.addAttribute(new Attribute("property", column.getJavaProperty()));
+            item.addAttribute(new Attribute("jdbcType", column.getJdbcTypeName()));
+            if (column.getTypeHandler() != null && !column.getTypeHandler().isEmpty()) {
+                item.addAttribute(new Attribute("typeHandler", column.getTypeHandler()));
+            }
+            xml.addElement(item);
+        }
+        return xml;
+    }
+
+    private XmlElement buildSelectSummaryXml(String id, String tableName) {
+        XmlElement xml = new XmlElement("select");
+        xml.addAttribute(new Attribute("id", id));
+        xml.addAttribute(new Attribute("resultMap", "SummaryResultMap"));
+        xml.addElement(new TextElement("select"));
+        xml.addElement(buildInclude("Summary_Column_List"));
+        xml.addElement(new TextElement("from " + tableName));
+        return xml;
+    }
+
+    /**
+     * 按索引列等值查询：唯一索引返回整行，与 selectByPrimaryKey 相同；其余可能返回多行，
+     * 与列表接口一样有摘要查询时只读摘要字段
+     */
+    private XmlElement buildFinderXml(String tableName, TableIndexes.Finder finder, IntrospectedTable table) {
+        XmlElement xml = !finder.unique && supportsSummary(table)
+                ? buildSelectSummaryXml(finder.methodName, tableName)
+                : buildSelectAllColumns(finder.methodName, tableName, table);
+        xml.addElement(new TextElement("where " + finder.columns.stream()
+                .map(column -> MyBatis3FormattingUtilities.getEscapedColumnName(column) + " = "
+                        + MyBatis3FormattingUtilities.getParameterClause(column))
+                .collect(Collectors.joining(" and "))));
+        return xml;
+    }
+
+    /**
+     * 整表的版本戳：行数 + 版本列之和 + 版本列最大值。每次写入都会增大该行的版本，和随之变化，
+     * 不论这一行是否持有最大值；增删行改变行数。只读聚合值，比读出整张表再计算摘要便宜得多
+     */
+    private XmlElement buildSelectVersionStampXml(String tableName, IntrospectedColumn versionColumn) {
+        XmlElement xml = new XmlElement("select");
+        xml.addAttribute(new Attribute("id", "selectVersionStamp"));
+        xml.addAttribute(new Attribute("resultType", "java.lang.String"));
+        String column = versionColumn.getActualColumnName();
+        xml.addElement(new TextElement("select concat(count(*), '-', sum(" + versionSumExpression(versionColumn)
+                + "), '-', max(" + column + ")) from " + tableName));
+        return xml;
+    }
+
+    /**
+     * 版本列参与求和的表达式：数值列直接求和；时间列换算为 unix_timestamp，MySQL 对时间类型直接 sum 会截断为年份。
+     * 其它类型无法求和，返回 null
+     */
+    private static String versionSumExpression(IntrospectedColumn column) {
+        switch (column.getJdbcType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return column.getActualColumnName();
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return "unix_timestamp(" + column.getActualColumnName() + ")";
+            default:
+                return null;
+        }
+    }
+
+    private XmlElement buildSelectVersionByIdXml(String tableName, IntrospectedColumn versionColumn,
+            IntrospectedColumn pk) {
+        XmlElement xml = new XmlElement("select");
+        xml.addAttribute(new Attribute("id", "selectVersionById"));
+        xml.addAttribute(new Attribute("resultType",
+                versionColumn.getFullyQualifiedJavaType().getFullyQualifiedNameWithoutTypeParameters()));
+        xml.addElement(new TextElement("select " + versionColumn.getActualColumnName() + " from " + tableName
+                + " where " + pk.getActualColumnName() + " = #{id,jdbcType=" + pk.getJdbcTypeName() + "}"));
         return xml;
     }
 
+    private XmlElement buildSelectAllColumns(String id, String tableName, IntrospectedTable table) {
+        XmlElement xml = new XmlElement("select");
+        xml.addAttribute(new Attribute("id", id));
+        // 与 selectByPrimaryKey 保持一致：有大字段时使用带 BLOB 的结果集
+        xml.addAttribute(new Attribute("resultMap", table.hasBLOBColumns()
+                ? table.getResultMapWithBLOBsId() : table.getBaseResultMapId()));
+        xml.addElement(new TextElement("select"));
+        xml.addElement(buildInclude(table.getBaseColumnListId()));
+        if (table.hasBLOBColumns()) {
+            xml.addElement(new TextElement(","));
+            xml.addElement(buildInclude(table.getBlobColumnListId()));
+        }
+        xml.addElement(new TextElement("from " + tableName));
+        return xml;
+    }
+
+    private XmlElement buildInclude(String refid) {
+        XmlElement include = new XmlElement("include");
+        include.addAttribute(new Attribute("refid", refid));
+        return include;
+    }
+
     private String buildUpsertUpdateSql(List<IntrospectedColumn> columns, IntrospectedTable table) {
         String updates = columns.stream()
                 .filter(c -> !isPrimaryKey(c, table))
@@ -100,10 +382,16 @@ public class BatchPlugin extends PluginAdapter {
     // ---------------- 辅助方法 ----------------
 
     private Method generateMethod(String name, Parameter parameter) {
+        return generateMethod(name, FullyQualifiedJavaType.getIntInstance(), parameter);
+    }
+
+    private Method generateMethod(String name, FullyQualifiedJavaType returnType, Parameter... parameters) {
         Method method = new Method(name);
         method.setVisibility(JavaVisibility.PUBLIC);
-        method.setReturnType(FullyQualifiedJavaType.getIntInstance());
-        method.addParameter(parameter);
+        method.setReturnType(returnType);
+        for (Parameter parameter : parameters) {
+            method.addParameter(parameter);
+        }
 
         // 【解决大括号的关键】设置为抽象方法，生成器会自动以分号结尾
         method.setAbstract(true);
@@ -111,6 +399,164 @@ public class BatchPlugin extends PluginAdapter {
         return method;
     }
 
+    /**
+     * 大字段：TEXT / BLOB 等 MBG 归为 BLOB 的列，以及长度超过 summaryMaxLength 的字符、二进制列；主键列始终保留
+     */
+    private List<IntrospectedColumn> findLargeColumns(IntrospectedTable table) {
+        int maxLength = Integer.parseInt(table.getTableConfiguration().getProperties()
+                .getProperty("summaryMaxLength", String.valueOf(summaryMaxLength)));
+        List<IntrospectedColumn> largeColumns = new ArrayList<>();
+        for (IntrospectedColumn column : table.getNonPrimaryKeyColumns()) {
+            if (column.isBLOBColumn() || (isVariableLength(column) && column.getLength() > maxLength)) {
+                largeColumns.add(column);
+            }
+        }
+        return largeColumns;
+    }
+
+    /**
+     * 表级属性 versionColumn 指向的列；列不存在或是大字段时给出警告，该表不生成版本查询
+     */
+    private IntrospectedColumn findVersionColumn(IntrospectedTable table) {
+        String name = table.getTableConfiguration().getProperties().getProperty("versionColumn");
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        for (IntrospectedColumn column : table.getAllColumns()) {
+            if (column.getActualColumnName().equalsIgnoreCase(name.trim())) {
+                if (column.isBLOBColumn()) {
+                    warnings.add("[BatchPlugin] 表 " + table.getFullyQualifiedTable() + " 的 versionColumn " + name
+                            + " 是大字段，不能作为版本列。");
+                    return null;
+                }
+                if (versionSumExpression(column) == null) {
+                    warnings.add("[BatchPlugin] 表 " + table.getFullyQualifiedTable() + " 的 versionColumn " + name
+                            + " 不是数值或日期时间类型，不能作为版本列。");
+                    return null;
+                }
+                return column;
+            }
+        }
+        warnings.add("[BatchPlugin] 表 " + table.getFullyQualifiedTable() + " 没有 versionColumn 指定的列 " + name
+                + "，不生成条件 GET 的版本查询。");
+        return null;
+    }
+
+    private static boolean isVariableLength(IntrospectedColumn column) {
+        switch (column.getJdbcType()) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 摘要查询排除的大字段，未挂 BatchPlugin 时为空
+     */
+    @SuppressWarnings("unchecked")
+    static List<IntrospectedColumn> summaryExcludedColumns(IntrospectedTable table) {
+        Object columns = table.getAttribute(SUMMARY_EXCLUDED_COLUMNS);
+        return columns == null ? new ArrayList<>() : (List<IntrospectedColumn>) columns;
+    }
+
+    /**
+     * 有大字段可以排除、且仍剩余其它列时才生成摘要查询；构造器方式映射的 model 需要全部列，不支持
+     */
+    static boolean supportsSummary(IntrospectedTable table) {
+        List<IntrospectedColumn> excluded = summaryExcludedColumns(table);
+        return !excluded.isEmpty() && excluded.size() < table.getAllColumns().size()
+                && !table.isConstructorBased() && table.getRules().generateBaseRecordClass();
+    }
+
+    private static List<IntrospectedColumn> summaryColumns(IntrospectedTable table) {
+        List<IntrospectedColumn> excluded = summaryExcludedColumns(table);
+        return table.getAllColumns().stream().filter(column -> !excluded.contains(column)).collect(Collectors.toList());
+    }
+
+    /**
+     * 条件 GET 使用的版本列，未配置 versionColumn 或未挂 BatchPlugin 时为 null
+     */
+    static IntrospectedColumn versionColumn(IntrospectedTable table) {
+        return (IntrospectedColumn) table.getAttribute(VERSION_COLUMN);
+    }
+
+    /**
+     * getById 按主键只读版本列，需要单列主键
+     */
+    static boolean supportsVersionById(IntrospectedTable table) {
+        return versionColumn(table) != null && table.getPrimaryKeyColumns().size() == 1;
+    }
+
+    /**
+     * 按主键批量查询用 pk in (...)，组合主键只按首列过滤会返回多余的行，因此只支持单列主键
+     */
+    static boolean supportsMultiGet(IntrospectedTable table) {
+        return table.getPrimaryKeyColumns().size() == 1;
+    }
+
+    /**
+     * keyset 分页需要单列主键才能保证顺序唯一
+     */
+    static boolean supportsKeyset(IntrospectedTable table) {
+        return table.getPrimaryKeyColumns().size() == 1;
+    }
+
+    /**
+     * 估算 batchUpsert 中一行 VALUES 元组在 SQL 报文里占用的字节数，
+     * 供生成的 Service 按 max_allowed_packet 切分批次使用
+     */
+    static int estimateRowBytes(IntrospectedTable table) {
+        int bytes = 2; // "(" + ")"
+        for (IntrospectedColumn column : table.getAllColumns()) {
+            bytes += estimateColumnBytes(column) + 2; // ", " 分隔符
+        }
+        return bytes;
+    }
+
+    private static int estimateColumnBytes(IntrospectedColumn column) {
+        switch (column.getJdbcType()) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.TINYINT:
+                return 4;
+            case Types.SMALLINT:
+                return 6;
+            case Types.INTEGER:
+                return 11;
+            case Types.BIGINT:
+                return 20;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return 24;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return column.getLength() + 2;
+            case Types.DATE:
+                return 12;
+            case Types.TIME:
+                return 10;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return 28;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+                // utf8mb4 最坏情况每字符 4 字节，外加引号与转义
+                return Math.min(column.getLength(), LOB_ESTIMATE_BYTES / 4) * 4 + 4;
+            default:
+                // TEXT / BLOB 等大字段无法从元数据得到真实长度，按固定值估算
+                return column.isBLOBColumn() ? LOB_ESTIMATE_BYTES : 64;
+        }
+    }
+
     private boolean isPrimaryKey(IntrospectedColumn column, IntrospectedTable table) {
         return table.getPrimaryKeyColumns().stream()
                 .anyMatch(pk -> pk.getActualColumnName().equalsIgnoreCase(column.getActualColumnName()));
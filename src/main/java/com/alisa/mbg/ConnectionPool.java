@@ -0,0 +1,58 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.config.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * 整个 context 共用的小型连接池，连接按需创建、最多 maxSize 个，
+ * 替代每张表各自调用 context.getConnection() 建立新连接
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    private final Context context;
+    private final int maxSize;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+
+    ConnectionPool(Context context, int maxSize) {
+        this.context = context;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    Connection borrow() throws SQLException, InterruptedException {
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        if (created.incrementAndGet() <= maxSize) {
+            try {
+                return context.getConnection();
+            } catch (SQLException e) {
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        created.decrementAndGet();
+        return idle.take();
+    }
+
+    void release(Connection connection) {
+        if (connection != null) {
+            idle.offer(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            context.closeConnection(connection);
+        }
+        created.set(0);
+    }
+}
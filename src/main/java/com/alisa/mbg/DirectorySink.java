@@ -0,0 +1,135 @@
+package com.alisa.mbg;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * 写入文件系统：每个文件先完整写到同目录下的临时文件，再改名替换目标，读者不会看到写了一半的文件。
+ * 内容与磁盘上已有文件一致时不重写，避免无变化的文件触发下游项目 IDE / Maven 的整体重新编译。
+ *
+ * staged 为 true 时改名推迟到 commit()，失败时 abort() 删除临时文件，已有输出保持不变；
+ * pruneRoot 不为 null 时 commit() 之后删除该目录下本次没有生成的文件，代替生成前清空目录。
+ */
+final class DirectorySink extends OutputSink {
+
+    private final Path pruneRoot;
+    private final boolean staged;
+    // 目标文件 -> 暂存的临时文件，渲染线程并发写入
+    private final Map<Path, Path> pending = new ConcurrentHashMap<>();
+    // 本次生成涉及的全部目标文件，包括内容未变化而跳过的
+    private final Set<Path> touched = ConcurrentHashMap.newKeySet();
+
+    DirectorySink(File pruneRoot, boolean staged) {
+        this.pruneRoot = pruneRoot == null ? null : normalize(pruneRoot);
+        this.staged = staged;
+    }
+
+    @Override
+    protected boolean writeBytes(File file, byte[] bytes) throws IOException {
+        Path target = normalize(file);
+        touched.add(target);
+        if (!pending.containsKey(target) && sameContent(target, bytes)) {
+            return false;
+        }
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+        Path temp = newTempFile(directory, target.getFileName().toString());
+        try {
+            Files.write(temp, bytes);
+            if (staged) {
+                Path previous = pending.put(target, temp);
+                if (previous != null) {
+                    Files.deleteIfExists(previous);
+                }
+            } else {
+                replace(temp, target);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    boolean exists(File file) {
+        Path target = normalize(file);
+        return pending.containsKey(target) || Files.isRegularFile(target);
+    }
+
+    @Override
+    boolean incremental() {
+        return pruneRoot == null;
+    }
+
+    @Override
+    void keep(File file) {
+        touched.add(normalize(file));
+    }
+
+    @Override
+    void commit() throws IOException {
+        for (Map.Entry<Path, Path> entry : pending.entrySet()) {
+            replace(entry.getValue(), entry.getKey());
+        }
+        pending.clear();
+        if (pruneRoot != null && Files.isDirectory(pruneRoot)) {
+            prune();
+        }
+    }
+
+    @Override
+    void abort() {
+        for (Path temp : pending.values()) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // 清理失败只留下隐藏的临时文件，不影响已有输出
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * 删除上一次生成遗留、本次不再生成的文件，以及因此变空的目录
+     */
+    private void prune() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(pruneRoot)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            if (path.equals(pruneRoot)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if (children.findAny().isEmpty()) {
+                        Files.delete(path);
+                    }
+                }
+            } else if (!touched.contains(path)) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static boolean sameContent(Path target, byte[] bytes) throws IOException {
+        return Files.isRegularFile(target) && Files.size(target) == bytes.length
+                && Arrays.equals(Files.readAllBytes(target), bytes);
+    }
+
+    private static Path normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,278 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.codegen.RootClassInfo;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.xml.ConfigurationParser;
+import org.mybatis.generator.exception.InvalidConfigurationException;
+import org.mybatis.generator.internal.DefaultShellCallback;
+import org.mybatis.generator.internal.ObjectFactory;
+import org.mybatis.generator.internal.util.ClassloaderUtility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * watch 模式：进程常驻，监听 generatorConfig.xml 与 templateDir 下的模板文件，变化合并（去抖）后重新生成。
+ * JVM、Velocity 引擎与已解析的配置在多次生成之间复用；只有模板变化时不再连接数据库读取表结构，
+ * 而是用上一次读取到的表结构重新构造 IntrospectedTable。配置变化时重新解析配置并读取表结构。
+ *
+ * 每次生成都是增量生成：清单按表与模板分别记录指纹，只有受影响的表、模板的产物会重新渲染，
+ * 内容未变化的文件也不会重写。生成失败时输出保持原样，进程继续监听，修正后自动重试。
+ */
+final class GenerationDaemon {
+
+    private final File configFile;
+    private final File buildDir;
+    private final File reportFile;
+    private final long debounceMillis;
+
+    private Configuration config;
+    // 上一次读取到的表结构，模板变化时据此重新构造 IntrospectedTable
+    private final Map<Context, List<IntrospectedTable>> snapshots = new LinkedHashMap<>();
+
+    private WatchService watcher;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private final Set<Path> templateFiles = new LinkedHashSet<>();
+
+    GenerationDaemon(File configFile, File buildDir, File reportFile, long debounceMillis) {
+        this.configFile = configFile.getAbsoluteFile();
+        this.buildDir = buildDir;
+        this.reportFile = reportFile;
+        this.debounceMillis = debounceMillis;
+    }
+
+    void run() throws IOException, InterruptedException {
+        watcher = FileSystems.getDefault().newWatchService();
+        try {
+            if (reloadConfig()) {
+                generate(true);
+            }
+            while (true) {
+                Set<Path> changed = awaitChanges();
+                boolean configChanged = changed.contains(configFile.toPath());
+                if (!configChanged && !containsTemplate(changed)) {
+                    continue;
+                }
+                System.out.println("changed: " + changed);
+                if (configChanged && !reloadConfig()) {
+                    continue;
+                }
+                // 配置变化或此前从未成功读取表结构时才连接数据库
+                generate(configChanged || snapshots.isEmpty());
+            }
+        } finally {
+            watcher.close();
+        }
+    }
+
+    /**
+     * 解析配置并检查模板，失败时保留上一次的配置继续监听；成功后按新配置重新登记监听的目录
+     */
+    private boolean reloadConfig() throws IOException {
+        boolean loaded = false;
+        try {
+            Configuration parsed = new ConfigurationParser(new ArrayList<>()).parseConfiguration(configFile);
+            parsed.validate();
+            MbgApplication.checkTemplates(parsed);
+            config = parsed;
+            snapshots.clear();
+            loaded = true;
+        } catch (InvalidConfigurationException e) {
+            System.out.println("Invalid configuration: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        if (loaded || watchedDirs.isEmpty()) {
+            registerWatches();
+        }
+        return loaded;
+    }
+
+    private void registerWatches() throws IOException {
+        for (WatchKey key : watchedDirs.keySet()) {
+            key.cancel();
+        }
+        watchedDirs.clear();
+        templateFiles.clear();
+
+        Set<Path> dirs = new LinkedHashSet<>();
+        dirs.add(configFile.toPath().getParent());
+        if (config != null) {
+            try {
+                for (Properties properties : MbgApplication.velocityPluginProperties(config)) {
+                    for (Path file : TemplateCache.templateFiles(properties)) {
+                        templateFiles.add(file);
+                        dirs.add(file.getParent());
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            if (templateFiles.isEmpty()) {
+                System.out.println("templates are loaded from the classpath, only " + configFile.getName()
+                        + " is watched");
+            }
+        }
+        for (Path dir : dirs) {
+            WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(key, dir);
+        }
+        System.out.println("watching " + dirs);
+    }
+
+    /**
+     * 阻塞到第一个文件事件，之后持续收集，直到 debounceMillis 内不再有新事件；
+     * 编辑器保存一次文件往往产生多个事件，合并后只生成一次
+     */
+    private Set<Path> awaitChanges() throws InterruptedException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watcher.take();
+        while (key != null) {
+            Path dir = watchedDirs.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (dir != null && event.context() instanceof Path) {
+                    changed.add(dir.resolve((Path) event.context()));
+                }
+            }
+            key.reset();
+            key = watcher.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    private boolean containsTemplate(Set<Path> changed) {
+        for (Path path : changed) {
+            if (templateFiles.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一次增量生成，与 MbgApplication 相同：暂存全部文件，成功后提交，失败时丢弃
+     */
+    private void generate(boolean introspect) {
+        GenerationReport report = GenerationReport.start();
+        DirectorySink sink = new DirectorySink(null, true);
+        OutputSink.use(sink);
+        buildDir.mkdir();
+        boolean committed = false;
+        try {
+            List<String> warnings = new ArrayList<>();
+            List<GeneratedJavaFile> javaFiles;
+            List<GeneratedXmlFile> xmlFiles;
+            if (introspect) {
+                MyBatisGenerator myBatisGenerator = new MyBatisGenerator(config, new DefaultShellCallback(true),
+                        warnings);
+                myBatisGenerator.generate(report, null, null, false);
+                javaFiles = myBatisGenerator.getGeneratedJavaFiles();
+                xmlFiles = myBatisGenerator.getGeneratedXmlFiles();
+                snapshots.clear();
+                for (Context context : config.getContexts()) {
+                    snapshots.put(context, new ArrayList<>(context.getIntrospectedTables()));
+                }
+            } else {
+                javaFiles = new ArrayList<>();
+                xmlFiles = new ArrayList<>();
+                generateFromSnapshots(report, javaFiles, xmlFiles, warnings);
+            }
+            report.beginPhase("write");
+            MbgApplication.writeChangedFiles(javaFiles, xmlFiles, sink);
+            sink.commit();
+            committed = true;
+            report.beginPhase(null);
+
+            report.addWarnings(warnings);
+            report.printSummary();
+            report.writeJson(reportFile);
+            System.out.println("completed!!! (" + (introspect ? "tables introspected" : "table metadata reused")
+                    + "), waiting for changes...");
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            VelocityCodeGeneratorPlugin.releaseAll();
+            if (!committed) {
+                sink.abort();
+                System.out.println("generation failed, output left unchanged, waiting for changes...");
+            }
+        }
+    }
+
+    /**
+     * 与 MyBatisGenerator.generate 的生成阶段相同，只是跳过 introspectTables，
+     * IntrospectedTable 在生成过程中会累积状态，因此每次都从快照复制一份新的
+     */
+    private void generateFromSnapshots(GenerationReport report, List<GeneratedJavaFile> javaFiles,
+            List<GeneratedXmlFile> xmlFiles, List<String> warnings) throws InterruptedException {
+        ObjectFactory.reset();
+        RootClassInfo.reset();
+        if (!config.getClassPathEntries().isEmpty()) {
+            ObjectFactory.addExternalClassLoader(ClassloaderUtility.getCustomClassloader(config.getClassPathEntries()));
+        }
+
+        int totalSteps = 0;
+        for (Map.Entry<Context, List<IntrospectedTable>> entry : snapshots.entrySet()) {
+            Context context = entry.getKey();
+            context.getIntrospectedTables().clear();
+            for (IntrospectedTable introspectedTable : entry.getValue()) {
+                context.getIntrospectedTables().add(copyOf(introspectedTable, context));
+            }
+            totalSteps += context.getGenerationSteps();
+        }
+        report.generationStarted(totalSteps);
+        for (Context context : snapshots.keySet()) {
+            context.generateFiles(report, javaFiles, xmlFiles, new ArrayList<>(), new ArrayList<>(), warnings);
+        }
+        report.done();
+    }
+
+    /**
+     * 按 DatabaseIntrospector 的方式重新构造：列、主键、表注释与表类型，列对象本身只读，直接复用；
+     * 索引同样属于表结构，一并复制，initialized 中不再查询
+     */
+    private static IntrospectedTable copyOf(IntrospectedTable introspectedTable, Context context) {
+        IntrospectedTable copy = ObjectFactory.createIntrospectedTable(introspectedTable.getTableConfiguration(),
+                introspectedTable.getFullyQualifiedTable(), context);
+        for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            copy.addColumn(column);
+        }
+        for (IntrospectedColumn column : introspectedTable.getPrimaryKeyColumns()) {
+            copy.addPrimaryKeyColumn(column.getActualColumnName());
+        }
+        copy.setRemarks(introspectedTable.getRemarks());
+        copy.setTableType(introspectedTable.getTableType());
+        if (TableIndexes.introspected(introspectedTable)) {
+            copy.setAttribute(TableIndexes.ATTRIBUTE, TableIndexes.indexes(introspectedTable));
+        }
+        return copy;
+    }
+}
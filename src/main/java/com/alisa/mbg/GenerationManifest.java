@@ -0,0 +1,152 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/*
+ * 增量生成清单：记录上一次生成时每张表的结构指纹、插件属性的指纹，以及每个模板各自的指纹。
+ * 表与插件属性都未变化时，只有修改过的模板需要重新渲染，其余产物仍在磁盘上就可以跳过。
+ * 清单保存在 targetProject 下，输出目录被清空后自然退化为全量生成；--zip 输出时不写清单。
+ */
+final class GenerationManifest {
+
+    static final String FILE_NAME = ".mbg-manifest.properties";
+
+    private static final String CONTEXT_KEY = "context";
+    private static final String TABLE_PREFIX = "table.";
+    private static final String TEMPLATE_PREFIX = "template.";
+
+    private final File file;
+    private final Properties previous = new Properties();
+    // Properties 基于 Hashtable，渲染线程并发登记是安全的
+    private final Properties current = new Properties();
+
+    private GenerationManifest(File file) {
+        this.file = file;
+    }
+
+    /**
+     * reusePrevious 为 false 时不读取上一次的清单，所有表按首次生成处理；本次的清单照常写出，供之后的增量生成使用
+     */
+    static GenerationManifest load(String targetProject, boolean reusePrevious) {
+        GenerationManifest manifest = new GenerationManifest(new File(targetProject, FILE_NAME));
+        if (reusePrevious && manifest.file.isFile()) {
+            try (InputStream in = Files.newInputStream(manifest.file.toPath())) {
+                manifest.previous.load(in);
+            } catch (IOException e) {
+                // 清单损坏时当作首次生成
+                manifest.previous.clear();
+            }
+        }
+        return manifest;
+    }
+
+    void setContextFingerprint(String fingerprint) {
+        current.setProperty(CONTEXT_KEY, fingerprint);
+    }
+
+    void setTemplateFingerprints(Map<String, String> fingerprints) {
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            current.setProperty(TEMPLATE_PREFIX + entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 模板与上一次生成时相比是否未修改
+     */
+    boolean templateUnchanged(String name) {
+        return previous.getProperty(TEMPLATE_PREFIX + name, "").equals(current.getProperty(TEMPLATE_PREFIX + name));
+    }
+
+    /**
+     * 登记本次的表指纹，并返回它与上一次相比是否未变化（插件属性也未变化）
+     */
+    boolean tableUnchanged(String modelName, String fingerprint) {
+        current.setProperty(TABLE_PREFIX + modelName, fingerprint);
+        return previous.getProperty(CONTEXT_KEY, "").equals(current.getProperty(CONTEXT_KEY))
+                && fingerprint.equals(previous.getProperty(TABLE_PREFIX + modelName));
+    }
+
+    void save() throws IOException {
+        // ZIP 输出不改动输出目录，清单只是增量生成的记录，不应随产物打包分发
+        if (OutputSink.current() instanceof ZipSink) {
+            return;
+        }
+        // 按 key 排序写出，清单本身的内容也保持稳定
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted(current).entrySet()) {
+            content.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        OutputSink.current().write(file, content.toString());
+    }
+
+    /**
+     * 表结构指纹：列名、JDBC 类型、长度、精度、可空、Java 类型与属性名，主键列，摘要查询排除的列，以及表级配置属性
+     */
+    static String tableFingerprint(IntrospectedTable introspectedTable) {
+        StringBuilder text = new StringBuilder();
+        text.append(introspectedTable.getFullyQualifiedTable().getIntrospectedTableName()).append('\n');
+        for (IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            text.append(column.getActualColumnName()).append(':')
+                    .append(column.getJdbcType()).append(':')
+                    .append(column.getLength()).append(':')
+                    .append(column.getScale()).append(':')
+                    .append(column.isNullable()).append(':')
+                    .append(column.getFullyQualifiedJavaType().getFullyQualifiedName()).append(':')
+                    .append(column.getJavaProperty()).append('\n');
+        }
+        for (IntrospectedColumn column : introspectedTable.getPrimaryKeyColumns()) {
+            text.append("pk:").append(column.getActualColumnName()).append('\n');
+        }
+        // 摘要查询排除哪些列取决于 BatchPlugin 的属性，不在本插件的属性指纹里
+        for (IntrospectedColumn column : BatchPlugin.summaryExcludedColumns(introspectedTable)) {
+            text.append("summaryExcluded:").append(column.getActualColumnName()).append('\n');
+        }
+        // 索引决定生成哪些 findBy 方法
+        for (TableIndexes.Index index : TableIndexes.indexes(introspectedTable)) {
+            text.append("index:").append(index.name).append(':').append(index.unique);
+            for (IntrospectedColumn column : index.columns) {
+                text.append(':').append(column.getActualColumnName());
+            }
+            text.append('\n');
+        }
+        text.append(sorted(introspectedTable.getTableConfiguration().getProperties()));
+        return sha256(text.toString());
+    }
+
+    static String propertiesFingerprint(Properties properties) {
+        return sha256(sorted(properties).toString());
+    }
+
+    static String sha256(String text) {
+        return sha256(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> sorted(Properties properties) {
+        Map<String, String> sorted = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            sorted.put(name, properties.getProperty(name));
+        }
+        return sorted;
+    }
+}
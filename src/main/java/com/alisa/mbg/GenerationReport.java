@@ -0,0 +1,283 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.ProgressCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * 一次生成的耗时报告：各阶段耗时、每张表每个模板的耗时、枚举数据查询耗时与行数、写出的文件数与字节数，以及警告。
+ * 插件由 MBG 反射创建，拿不到实例，因此各处统一向 current() 登记；MbgApplication 在运行开始时 start()，结束时输出。
+ * 渲染可能在线程池中进行，登记方法都是同步的。
+ */
+final class GenerationReport implements ProgressCallback {
+
+    private static volatile GenerationReport current = new GenerationReport();
+
+    private final long startNanos = System.nanoTime();
+    private final Instant startedAt = Instant.now();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private String phase;
+    private long phaseStartNanos;
+    private final Map<String, TableStats> tables = new LinkedHashMap<>();
+    private final Map<String, long[]> templates = new LinkedHashMap<>();
+    private int filesWritten;
+    private int filesUnchanged;
+    private long bytesWritten;
+    private final List<String> warnings = new ArrayList<>();
+
+    private GenerationReport() {
+    }
+
+    static GenerationReport start() {
+        current = new GenerationReport();
+        return current;
+    }
+
+    static GenerationReport current() {
+        return current;
+    }
+
+    // ---------------- 阶段，由 MyBatisGenerator 回调 ----------------
+
+    @Override
+    public void introspectionStarted(int totalTasks) {
+        beginPhase("introspection");
+    }
+
+    @Override
+    public void generationStarted(int totalTasks) {
+        beginPhase("generation");
+    }
+
+    @Override
+    public void saveStarted(int totalTasks) {
+        beginPhase("write");
+    }
+
+    @Override
+    public void done() {
+        beginPhase(null);
+    }
+
+    synchronized void beginPhase(String name) {
+        long now = System.nanoTime();
+        if (phase != null) {
+            phases.merge(phase, now - phaseStartNanos, Long::sum);
+        }
+        phase = name;
+        phaseStartNanos = now;
+    }
+
+    // ---------------- 插件登记 ----------------
+
+    /**
+     * 执行一个生成步骤并计时；table 为 null 表示汇总文件，只计入模板合计
+     */
+    void time(String table, String step, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            recordStep(table, step, System.nanoTime() - start);
+        }
+    }
+
+    synchronized void recordStep(String table, String step, long nanos) {
+        long[] total = templates.computeIfAbsent(step, key -> new long[2]);
+        total[0]++;
+        total[1] += nanos;
+        if (table != null) {
+            TableStats stats = table(table);
+            stats.steps.merge(step, nanos, Long::sum);
+            stats.totalNanos += nanos;
+        }
+    }
+
+    synchronized void recordUnchanged(String table) {
+        table(table).unchanged = true;
+    }
+
+    synchronized void recordEnumQuery(String table, long queryNanos, int rows) {
+        TableStats stats = table(table);
+        stats.enumQueryNanos = queryNanos;
+        stats.enumRows = rows;
+    }
+
+    synchronized void recordFile(long bytes, boolean written) {
+        if (written) {
+            filesWritten++;
+            bytesWritten += bytes;
+        } else {
+            filesUnchanged++;
+        }
+    }
+
+    synchronized void addWarnings(List<String> messages) {
+        warnings.addAll(messages);
+    }
+
+    private TableStats table(String table) {
+        return tables.computeIfAbsent(table, key -> new TableStats());
+    }
+
+    // ---------------- 输出 ----------------
+
+    synchronized void printSummary() {
+        System.out.println("---------------- generation report ----------------");
+        System.out.printf("total: %s ms%n", millis(System.nanoTime() - startNanos));
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            System.out.printf("  %-14s %10s ms%n", entry.getKey(), millis(entry.getValue()));
+        }
+        System.out.printf("files: %d written (%d bytes), %d unchanged%n", filesWritten, bytesWritten,
+                filesUnchanged);
+
+        System.out.println("templates:");
+        for (Map.Entry<String, long[]> entry : templates.entrySet()) {
+            System.out.printf("  %-14s %10s ms  x%d%n", entry.getKey(), millis(entry.getValue()[1]),
+                    entry.getValue()[0]);
+        }
+
+        // 只列出最慢的 10 张表，完整数据见 JSON
+        List<Map.Entry<String, TableStats>> slowest = new ArrayList<>(tables.entrySet());
+        slowest.sort(Comparator.comparingLong(
+                (Map.Entry<String, TableStats> entry) -> entry.getValue().totalNanos).reversed());
+        System.out.println("slowest tables:");
+        for (Map.Entry<String, TableStats> entry : slowest.subList(0, Math.min(10, slowest.size()))) {
+            TableStats stats = entry.getValue();
+            StringBuilder line = new StringBuilder(String.format("  %-24s %10s ms", entry.getKey(),
+                    millis(stats.totalNanos)));
+            if (stats.enumRows >= 0) {
+                line.append(String.format("  (enum query %s ms, %d rows)", millis(stats.enumQueryNanos),
+                        stats.enumRows));
+            }
+            if (stats.unchanged) {
+                line.append("  (unchanged)");
+            }
+            System.out.println(line);
+        }
+
+        if (!warnings.isEmpty()) {
+            System.out.println("warnings:");
+            for (String warning : warnings) {
+                System.out.println("  " + warning);
+            }
+        }
+    }
+
+    synchronized void writeJson(File file) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"startedAt\": ").append(quote(startedAt.toString())).append(",\n");
+        json.append("  \"totalMs\": ").append(millis(System.nanoTime() - startNanos)).append(",\n");
+
+        json.append("  \"phases\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            json.append(separator).append("\n    ").append(quote(entry.getKey())).append(": ")
+                    .append(millis(entry.getValue()));
+            separator = ",";
+        }
+        json.append(phases.isEmpty() ? "" : "\n  ").append("},\n");
+
+        json.append("  \"files\": {\"written\": ").append(filesWritten)
+                .append(", \"unchanged\": ").append(filesUnchanged)
+                .append(", \"bytesWritten\": ").append(bytesWritten).append("},\n");
+
+        json.append("  \"templates\": {");
+        separator = "";
+        for (Map.Entry<String, long[]> entry : templates.entrySet()) {
+            json.append(separator).append("\n    ").append(quote(entry.getKey()))
+                    .append(": {\"count\": ").append(entry.getValue()[0])
+                    .append(", \"totalMs\": ").append(millis(entry.getValue()[1])).append('}');
+            separator = ",";
+        }
+        json.append(templates.isEmpty() ? "" : "\n  ").append("},\n");
+
+        json.append("  \"tables\": [");
+        separator = "";
+        for (Map.Entry<String, TableStats> entry : tables.entrySet()) {
+            TableStats stats = entry.getValue();
+            json.append(separator).append("\n    {\"table\": ").append(quote(entry.getKey()))
+                    .append(", \"totalMs\": ").append(millis(stats.totalNanos))
+                    .append(", \"unchanged\": ").append(stats.unchanged)
+                    .append(", \"steps\": {");
+            String stepSeparator = "";
+            for (Map.Entry<String, Long> step : stats.steps.entrySet()) {
+                json.append(stepSeparator).append(quote(step.getKey())).append(": ").append(millis(step.getValue()));
+                stepSeparator = ", ";
+            }
+            json.append('}');
+            if (stats.enumRows >= 0) {
+                json.append(", \"enum\": {\"queryMs\": ").append(millis(stats.enumQueryNanos))
+                        .append(", \"rows\": ").append(stats.enumRows).append('}');
+            }
+            json.append('}');
+            separator = ",";
+        }
+        json.append(tables.isEmpty() ? "" : "\n  ").append("],\n");
+
+        json.append("  \"warnings\": [");
+        separator = "";
+        for (String warning : warnings) {
+            json.append(separator).append("\n    ").append(quote(warning));
+            separator = ",";
+        }
+        json.append(warnings.isEmpty() ? "" : "\n  ").append("]\n");
+        json.append("}\n");
+
+        // 报告每次内容都不同，直接写出，也不计入文件统计
+        Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '"':
+                quoted.append("\\\"");
+                break;
+            case '\\':
+                quoted.append("\\\\");
+                break;
+            case '\n':
+                quoted.append("\\n");
+                break;
+            case '\r':
+                quoted.append("\\r");
+                break;
+            case '\t':
+                quoted.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    quoted.append(String.format("\\u%04x", (int) c));
+                } else {
+                    quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static final class TableStats {
+        private final Map<String, Long> steps = new LinkedHashMap<>();
+        private long totalNanos;
+        private boolean unchanged;
+        private long enumQueryNanos;
+        private int enumRows = -1;
+    }
+}
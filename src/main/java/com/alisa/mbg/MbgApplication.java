@@ -1,8 +1,13 @@
 package com.alisa.mbg;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
 import org.mybatis.generator.api.MyBatisGenerator;
 import org.mybatis.generator.config.*;
 import org.mybatis.generator.config.xml.ConfigurationParser;
@@ -12,34 +17,147 @@ import org.mybatis.generator.internal.DefaultShellCallback;
 public class MbgApplication {
 
 	public static void main(String[] args) {
+		GenerationReport report = GenerationReport.start();
 		try {
-			File buildDir = new File("output");
-			if (buildDir.exists()) {
-				deleteFolder(buildDir);
-			}
-			buildDir.mkdir();
-
 			List<String> warnings = new ArrayList<String>();
 			boolean overwrite = true;
 			File configFile = new File("generatorConfig.xml");
+
+			// --watch：常驻进程，配置或模板变化后自动重新生成；--debounce=毫秒 为变化合并的等待时间
+			if (Arrays.asList(args).contains("--watch")) {
+				long debounceMillis = 300;
+				String watchReportPath = "mbg-report.json";
+				for (String arg : args) {
+					if (arg.startsWith("--debounce=")) {
+						debounceMillis = Long.parseLong(arg.substring("--debounce=".length()));
+					} else if (arg.startsWith("--report=")) {
+						watchReportPath = arg.substring("--report=".length());
+					}
+				}
+				new GenerationDaemon(configFile, new File("output"), new File(watchReportPath), debounceMillis).run();
+				return;
+			}
+
 			ConfigurationParser cp = new ConfigurationParser(warnings);
 			Configuration config = cp.parseConfiguration(configFile);
+			checkTemplates(config);
+
+			// --incremental: 保留 output 目录，只重新生成有变化的表，内容未变的文件不重写
+			boolean incremental = Arrays.asList(args).contains("--incremental");
+			// --report=路径：JSON 报告的输出位置，默认写到当前目录
+			String reportPath = "mbg-report.json";
+			// --zip=路径：输出打包为一个 ZIP 文件，不改动 output 目录
+			String zipPath = null;
+			// --dry-run：只生成到内存，不写任何文件，用于检查配置与模板
+			boolean dryRun = Arrays.asList(args).contains("--dry-run");
+			// --snapshot=record|replay|auto：录制或回放离线 schema 快照，--snapshot-file=路径 为快照位置
+			String snapshotMode = null;
+			String snapshotPath = "mbg-schema.snapshot";
+			for (String arg : args) {
+				if (arg.startsWith("--report=")) {
+					reportPath = arg.substring("--report=".length());
+				} else if (arg.startsWith("--zip=")) {
+					zipPath = arg.substring("--zip=".length());
+				} else if (arg.startsWith("--snapshot=")) {
+					snapshotMode = arg.substring("--snapshot=".length());
+				} else if (arg.startsWith("--snapshot-file=")) {
+					snapshotPath = arg.substring("--snapshot-file=".length());
+				}
+			}
+			SchemaSnapshot snapshot = snapshotMode == null ? null
+					: SchemaSnapshot.open(new File(snapshotPath), snapshotMode, config);
+
+			File buildDir = new File("output");
+			OutputSink sink;
+			if (dryRun) {
+				sink = new MemorySink();
+			} else if (zipPath != null) {
+				sink = new ZipSink(new File(zipPath), buildDir);
+			} else {
+				// 全量模式不再预先清空目录，而是在提交后删除本次没有生成的文件；插件据此忽略增量清单，全部表重新渲染
+				sink = new DirectorySink(incremental ? null : buildDir, true);
+				buildDir.mkdir();
+			}
+			OutputSink.use(sink);
+
 			DefaultShellCallback callback = new DefaultShellCallback(overwrite);
 			MyBatisGenerator myBatisGenerator = new MyBatisGenerator(config, callback, warnings);
-			myBatisGenerator.generate(null);
+			// MBG 只负责生成，文件统一经 OutputSink 暂存，全部生成成功后才提交，任何一步失败输出都保持原样
+			boolean committed = false;
+			try {
+				myBatisGenerator.generate(report, null, null, false);
+				report.beginPhase("write");
+				writeChangedFiles(myBatisGenerator.getGeneratedJavaFiles(), myBatisGenerator.getGeneratedXmlFiles(), sink);
+				sink.commit();
+				committed = true;
+				if (snapshot != null) {
+					snapshot.saveIfRecorded();
+				}
+				report.beginPhase(null);
+			} finally {
+				VelocityCodeGeneratorPlugin.releaseAll();
+				if (!committed) {
+					sink.abort();
+					System.out.println("generation failed, output left unchanged");
+				}
+			}
 
-			// for (String warning : warnings) {
-			// System.out.println(warning);
-			// }
+			report.addWarnings(warnings);
+			report.printSummary();
+			report.writeJson(new File(reportPath));
 
 			System.out.println("completed!!!");
 		} catch (InvalidConfigurationException e) {
 			System.out.println("Invalid configuration: " + e.getMessage());
+		} catch (IllegalStateException e) {
+			System.out.println(e.getMessage());
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	// MBG 自身生成的 model / mapper / xml 也只在内容变化时写出，写出数量与字节数计入报告
+	static void writeChangedFiles(List<GeneratedJavaFile> javaFiles, List<GeneratedXmlFile> xmlFiles, OutputSink sink)
+			throws IOException {
+		for (GeneratedJavaFile file : javaFiles) {
+			File directory = outputDirectory(file.getTargetProject(), file.getTargetPackage());
+			sink.write(new File(directory, file.getFileName()), file.getFormattedContent());
+		}
+		for (GeneratedXmlFile file : xmlFiles) {
+			File directory = outputDirectory(file.getTargetProject(), file.getTargetPackage());
+			sink.write(new File(directory, file.getFileName()), file.getFormattedContent());
+		}
+	}
+
+	// 与 DefaultShellCallback.getDirectory 相同的路径规则，但不预先创建目录，目录由 OutputSink 按需创建
+	private static File outputDirectory(String targetProject, String targetPackage) {
+		return new File(targetProject, targetPackage.replace('.', File.separatorChar));
+	}
+
+	// 连接数据库之前先解析全部模板，模板有误时直接失败，不必等待表结构读取完成
+	static void checkTemplates(Configuration config) throws ReflectiveOperationException {
+		for (Properties properties : velocityPluginProperties(config)) {
+			TemplateCache.load(properties);
+		}
+	}
+
+	// 配置中全部 VelocityCodeGeneratorPlugin 的属性
+	@SuppressWarnings("unchecked")
+	static List<Properties> velocityPluginProperties(Configuration config) throws ReflectiveOperationException {
+		// Context 没有公开插件配置的 getter，这里直接读取字段
+		java.lang.reflect.Field field = Context.class.getDeclaredField("pluginConfigurations");
+		field.setAccessible(true);
+		List<Properties> result = new ArrayList<>();
+		for (Context context : config.getContexts()) {
+			for (PluginConfiguration pluginConfiguration : (List<PluginConfiguration>) field.get(context)) {
+				if (VelocityCodeGeneratorPlugin.class.getName().equals(pluginConfiguration.getConfigurationType())) {
+					result.add(pluginConfiguration.getProperties());
+				}
+			}
+		}
+		return result;
+	}
+
 	// 递归删除文件夹及其内容
 	public static boolean deleteFolder(File folder) {
 		if (folder.isDirectory()) {
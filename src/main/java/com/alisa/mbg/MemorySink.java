@@ -0,0 +1,41 @@
+package com.alisa.mbg;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * 只保存在内存中的输出，用于 --dry-run、测试与基准测试：
+ * 完整走一遍生成与格式化，但不产生任何磁盘 I/O。按路径排序保存，便于逐个比较。
+ */
+final class MemorySink extends OutputSink {
+
+    private final Map<String, byte[]> files = new ConcurrentSkipListMap<>();
+
+    @Override
+    protected boolean writeBytes(File file, byte[] bytes) {
+        byte[] previous = files.put(key(file), bytes);
+        return previous == null || !Arrays.equals(previous, bytes);
+    }
+
+    @Override
+    boolean exists(File file) {
+        return files.containsKey(key(file));
+    }
+
+    Map<String, byte[]> files() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    String content(File file) {
+        byte[] bytes = files.get(key(file));
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String key(File file) {
+        return file.toPath().normalize().toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,103 @@
+package com.alisa.mbg;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+
+/*
+ * 生成文件的统一出口：MBG 自身的 model / mapper / xml 与各插件渲染的文件都经由 current() 写出，
+ * 内容一律按 UTF-8 编码。实现可以先暂存、在 commit() 时整体发布，生成失败时 abort() 丢弃，
+ * 这样一次生成要么完整替换输出，要么保持原样，不会留下写了一半的文件树。
+ *
+ * 默认是立即写入目录的 DirectorySink；MbgApplication 按命令行参数换成暂存目录、ZIP 或内存实现。
+ * 插件由 MBG 反射创建，拿不到实例，因此与 GenerationReport 一样通过静态的 current() 共享。
+ */
+abstract class OutputSink {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile OutputSink current = new DirectorySink(null, false);
+
+    static OutputSink current() {
+        return current;
+    }
+
+    static void use(OutputSink sink) {
+        current = sink;
+    }
+
+    /**
+     * 写出一个文件，返回是否真正写入（内容未变化时可以跳过），结果计入生成报告
+     */
+    final boolean write(File file, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        boolean written = writeBytes(file, bytes);
+        GenerationReport.current().recordFile(bytes.length, written);
+        return written;
+    }
+
+    protected abstract boolean writeBytes(File file, byte[] bytes) throws IOException;
+
+    /**
+     * 文件在本次输出中已存在（已写出、已暂存或此前就在目标位置），用于增量生成判断是否可以跳过
+     */
+    abstract boolean exists(File file);
+
+    /**
+     * 是否沿用上一次生成的结果：会清理遗留文件的全量输出、ZIP 与内存输出都返回 false，插件忽略增量清单，全部重新渲染
+     */
+    boolean incremental() {
+        return false;
+    }
+
+    /**
+     * 增量生成时内容未变、没有重新渲染的文件，提交时不能当作遗留文件删除
+     */
+    void keep(File file) {
+    }
+
+    /**
+     * 发布本次写出的全部文件
+     */
+    void commit() throws IOException {
+    }
+
+    /**
+     * 丢弃尚未发布的文件，目标位置保持生成前的状态
+     */
+    void abort() {
+    }
+
+    /**
+     * 在目标所在目录创建临时文件。不用 Files.createTempFile，它在 POSIX 系统上固定创建 0600 的文件，
+     * 改名后生成的源码会变成只有属主可读；这里按普通文件创建，权限遵循 umask
+     */
+    static Path newTempFile(Path directory, String targetName) throws IOException {
+        while (true) {
+            Path temp = directory.resolve(
+                    "." + targetName + "." + Long.toUnsignedString(RANDOM.nextLong(), 36) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // 名字冲突时换一个重试
+            }
+        }
+    }
+
+    /**
+     * 同一目录内的临时文件改名替换目标文件，文件系统不支持原子改名时退回普通替换
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
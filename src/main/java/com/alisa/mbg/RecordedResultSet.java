@@ -0,0 +1,175 @@
+package com.alisa.mbg;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 完整读出的结果集：列名与全部行，可以序列化到 schema 快照中，再以只读、只能向前的 ResultSet 回放。
+ * 回放只支持 DatabaseIntrospector 与枚举生成用到的读取方法，值按 getObject 读出，
+ * 非 String / Number / Boolean 的值保存为字符串。
+ */
+final class RecordedResultSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> labels;
+    private final List<Object[]> rows;
+
+    private RecordedResultSet(List<String> labels, List<Object[]> rows) {
+        this.labels = labels;
+        this.rows = rows;
+    }
+
+    /**
+     * 读出剩余的全部行，调用方负责关闭原结果集
+     */
+    static RecordedResultSet copyOf(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<String> labels = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                Object value = rs.getObject(i + 1);
+                row[i] = value == null || value instanceof String || value instanceof Number
+                        || value instanceof Boolean ? value : value.toString();
+            }
+            rows.add(row);
+        }
+        return new RecordedResultSet(labels, rows);
+    }
+
+    List<String> labels() {
+        return labels;
+    }
+
+    List<Object[]> rows() {
+        return rows;
+    }
+
+    /**
+     * 每次回放都是一个新的游标，同一份记录可以被多次读取
+     */
+    ResultSet replay() {
+        Cursor cursor = new Cursor();
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> cursor.invoke(proxy, method.getName(), args));
+    }
+
+    private int columnIndex(Object column) throws SQLException {
+        if (column instanceof Integer) {
+            return (Integer) column - 1;
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i).equalsIgnoreCase((String) column)) {
+                return i;
+            }
+        }
+        throw new SQLException("Column not found in snapshot: " + column);
+    }
+
+    private final class Cursor {
+        private int row = -1;
+        private boolean wasNull;
+        private boolean closed;
+
+        Object invoke(Object proxy, String name, Object[] args) throws SQLException {
+            switch (name) {
+            case "next":
+                return ++row < rows.size();
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "wasNull":
+                return wasNull;
+            case "findColumn":
+                return columnIndex(args[0]) + 1;
+            case "getMetaData":
+                return metaData();
+            case "getObject":
+                return value(args[0]);
+            case "getString": {
+                Object value = value(args[0]);
+                return value == null ? null : value.toString();
+            }
+            case "getInt":
+                return number(args[0]).intValue();
+            case "getShort":
+                return number(args[0]).shortValue();
+            case "getLong":
+                return number(args[0]).longValue();
+            case "getBoolean": {
+                Object value = value(args[0]);
+                return value instanceof Boolean ? (Boolean) value
+                        : value != null && ("1".equals(value.toString()) || "true".equalsIgnoreCase(value.toString()));
+            }
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "RecordedResultSet" + labels;
+            default:
+                throw new SQLFeatureNotSupportedException("ResultSet." + name + " is not supported in snapshot replay");
+            }
+        }
+
+        private Object value(Object column) throws SQLException {
+            if (row < 0 || row >= rows.size()) {
+                throw new SQLException("No current row");
+            }
+            Object value = rows.get(row)[columnIndex(column)];
+            wasNull = value == null;
+            return value;
+        }
+
+        private Number number(Object column) throws SQLException {
+            Object value = value(column);
+            if (value == null) {
+                return 0;
+            }
+            if (value instanceof Number) {
+                return (Number) value;
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            }
+            return new BigDecimal(value.toString().trim());
+        }
+
+        private ResultSetMetaData metaData() {
+            return (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                    new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.size();
+                        case "getColumnName":
+                        case "getColumnLabel":
+                            return labels.get((Integer) args[0] - 1);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "RecordedResultSetMetaData" + labels;
+                        default:
+                            throw new SQLFeatureNotSupportedException(
+                                    "ResultSetMetaData." + method.getName() + " is not supported in snapshot replay");
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.ConnectionFactory;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.ConnectionFactoryConfiguration;
+import org.mybatis.generator.config.Context;
+import org.mybatis.generator.config.JDBCConnectionConfiguration;
+import org.mybatis.generator.config.TableConfiguration;
+import org.mybatis.generator.internal.JDBCConnectionFactory;
+import org.mybatis.generator.internal.ObjectFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * 离线 schema 快照：把 MBG 读取表结构时对 DatabaseMetaData 的调用结果，以及枚举生成查询的数据行，
+ * 按“方法 + 参数”或 SQL 记录到一个 gzip 压缩的本地文件中，之后的运行直接回放，不必连接数据库。
+ *
+ * 通过把每个 context 的连接配置替换为 SnapshotConnectionFactory 接入，MBG 的 introspection、
+ * 类型解析、columnOverride 等逻辑照常执行，只是数据来自快照，因此修改这些配置无需重新录制。
+ * 模式：
+ *   record  连接数据库，照常生成并录制，成功后写出快照
+ *   replay  只读快照，完全不连接数据库，快照中缺少的调用直接报错
+ *   auto    快照不存在或已过期时录制；数据库连不上时回放；快照仍然新鲜时表结构回放、枚举数据实时查询并更新
+ * 新鲜度检查读取配置中各表的列定义、主键与索引，与录制时的指纹比较。
+ */
+final class SchemaSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String QUERY_PREFIX = "query:";
+
+    private static volatile SchemaSnapshot current;
+
+    private final File file;
+    private final Map<String, Context> contexts = new HashMap<>();
+    // context id -> 原始连接配置创建的工厂，为 null 时完全离线
+    private final Map<String, ConnectionFactory> liveFactories;
+    private final boolean replayMetadata;
+    private final Instant recordedAt;
+    // "contextId|方法(参数)" 或 "contextId|query:SQL" -> 记录的返回值，录制时多个渲染线程并发写入
+    private final Map<String, Object> entries;
+    // context id -> 录制时的列定义指纹，用于新鲜度检查
+    private final Map<String, String> fingerprints;
+
+    private SchemaSnapshot(File file, Map<String, ConnectionFactory> liveFactories, boolean replayMetadata,
+            Instant recordedAt, Map<String, Object> entries, Map<String, String> fingerprints) {
+        this.file = file;
+        this.liveFactories = liveFactories;
+        this.replayMetadata = replayMetadata;
+        this.recordedAt = recordedAt;
+        this.entries = new ConcurrentHashMap<>(entries);
+        this.fingerprints = new ConcurrentHashMap<>(fingerprints);
+    }
+
+    static SchemaSnapshot current() {
+        return current;
+    }
+
+    /**
+     * 按模式决定录制还是回放，并把配置中每个 context 的连接换成快照连接
+     */
+    static SchemaSnapshot open(File file, String mode, Configuration config) throws IOException {
+        Map<String, ConnectionFactory> liveFactories = new HashMap<>();
+        for (Context context : config.getContexts()) {
+            JDBCConnectionConfiguration jdbcConnection = (JDBCConnectionConfiguration) contextField(context,
+                    "jdbcConnectionConfiguration");
+            liveFactories.put(context.getId(), jdbcConnection != null ? new JDBCConnectionFactory(jdbcConnection)
+                    : ObjectFactory.createConnectionFactory(context));
+        }
+
+        SchemaSnapshot snapshot;
+        switch (mode) {
+        case "record":
+            snapshot = record(file, liveFactories);
+            break;
+        case "replay":
+            if (!file.isFile()) {
+                throw new IllegalStateException("schema 快照不存在: " + file + "，请先使用 --snapshot=record 录制");
+            }
+            snapshot = load(file, null, true);
+            System.out.println("schema snapshot: replaying " + file + " recorded at " + snapshot.recordedAt);
+            break;
+        case "auto":
+            snapshot = auto(file, liveFactories, config);
+            break;
+        default:
+            throw new IllegalStateException("未知的 --snapshot 模式: " + mode + "，可选 record / replay / auto");
+        }
+
+        for (Context context : config.getContexts()) {
+            snapshot.contexts.put(context.getId(), context);
+            ConnectionFactoryConfiguration factoryConfiguration = new ConnectionFactoryConfiguration();
+            factoryConfiguration.setConfigurationType(SnapshotConnectionFactory.class.getName());
+            factoryConfiguration.addProperty("contextId", context.getId());
+            context.setJdbcConnectionConfiguration(null);
+            context.setConnectionFactoryConfiguration(factoryConfiguration);
+        }
+        current = snapshot;
+        return snapshot;
+    }
+
+    private static SchemaSnapshot record(File file, Map<String, ConnectionFactory> liveFactories) {
+        System.out.println("schema snapshot: recording to " + file);
+        return new SchemaSnapshot(file, liveFactories, false, Instant.now(), new HashMap<>(), new HashMap<>());
+    }
+
+    private static SchemaSnapshot auto(File file, Map<String, ConnectionFactory> liveFactories, Configuration config)
+            throws IOException {
+        if (!file.isFile()) {
+            return record(file, liveFactories);
+        }
+        SchemaSnapshot snapshot = load(file, liveFactories, true);
+        try {
+            for (Context context : config.getContexts()) {
+                String fingerprint;
+                try (Connection connection = liveFactories.get(context.getId()).getConnection()) {
+                    fingerprint = columnsFingerprint(connection, context);
+                }
+                if (!fingerprint.equals(snapshot.fingerprints.get(context.getId()))) {
+                    System.out.println("schema snapshot: context " + context.getId() + " changed since "
+                            + snapshot.recordedAt + ", re-recording");
+                    return record(file, liveFactories);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("schema snapshot: database unavailable (" + e.getMessage() + "), replaying " + file
+                    + " recorded at " + snapshot.recordedAt);
+            return load(file, null, true);
+        }
+        System.out.println("schema snapshot: " + file + " is up to date, enum data is queried live");
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SchemaSnapshot load(File file, Map<String, ConnectionFactory> liveFactories,
+            boolean replayMetadata) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()));
+                ObjectInputStream objects = new ObjectInputStream(in)) {
+            int version = objects.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("unsupported snapshot format " + version);
+            }
+            Instant recordedAt = (Instant) objects.readObject();
+            Map<String, String> fingerprints = (Map<String, String>) objects.readObject();
+            Map<String, Object> entries = (Map<String, Object>) objects.readObject();
+            return new SchemaSnapshot(file, liveFactories, replayMetadata, recordedAt, entries, fingerprints);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("schema 快照已损坏: " + file, e);
+        }
+    }
+
+    /**
+     * 本次有实时读取的数据时写出快照；在生成成功之后调用，失败的运行不会覆盖原有快照
+     */
+    void saveIfRecorded() throws IOException {
+        if (liveFactories == null) {
+            return;
+        }
+        if (!replayMetadata) {
+            for (Map.Entry<String, ConnectionFactory> entry : liveFactories.entrySet()) {
+                try (Connection connection = entry.getValue().getConnection()) {
+                    fingerprints.put(entry.getKey(), columnsFingerprint(connection, contexts.get(entry.getKey())));
+                } catch (SQLException e) {
+                    throw new IOException("schema 快照指纹计算失败: " + e.getMessage(), e);
+                }
+            }
+        }
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = OutputSink.newTempFile(target.getParent(), target.getFileName().toString());
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp));
+                    ObjectOutputStream objects = new ObjectOutputStream(out)) {
+                objects.writeInt(FORMAT_VERSION);
+                objects.writeObject(replayMetadata ? recordedAt : Instant.now());
+                objects.writeObject(new TreeMap<>(fingerprints));
+                objects.writeObject(new TreeMap<>(entries));
+            }
+            OutputSink.replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // ---------------- 连接代理 ----------------
+
+    /**
+     * SnapshotConnectionFactory 的入口：元数据按模式回放或录制，枚举查询有实时连接时录制，否则回放
+     */
+    Connection connect(String contextId) {
+        SnapshotConnection handler = new SnapshotConnection(contextId);
+        Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (p, method, args) -> handler.invoke(p, method, args));
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * 实际的数据库连接在第一次需要时才建立，元数据全部回放时整个运行都不会连接数据库
+     */
+    private final class SnapshotConnection {
+        private final String contextId;
+        private final ConnectionFactory live;
+        private Connection proxy;
+        private Connection real;
+        private boolean closed;
+
+        SnapshotConnection(String contextId) {
+            this.contextId = contextId;
+            this.live = liveFactories == null ? null : liveFactories.get(contextId);
+        }
+
+        Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "getMetaData":
+                return replayMetadata ? metaData(null) : metaData(real().getMetaData());
+            case "prepareStatement":
+                return statement((String) args[0], live == null ? null : (PreparedStatement) call(real(), method, args));
+            case "close":
+                closed = true;
+                if (real != null) {
+                    real.close();
+                }
+                return null;
+            case "isClosed":
+                return closed;
+            case "hashCode":
+                return System.identityHashCode(p);
+            case "equals":
+                return p == args[0];
+            case "toString":
+                return "SnapshotConnection[" + contextId + "]";
+            default:
+                if (live == null) {
+                    throw new SQLFeatureNotSupportedException(
+                            "Connection." + method.getName() + " is not supported in snapshot replay");
+                }
+                return call(real(), method, args);
+            }
+        }
+
+        private Connection real() throws SQLException {
+            if (live == null) {
+                throw new SQLException("schema 快照回放中没有可用的数据库连接");
+            }
+            if (real == null) {
+                real = live.getConnection();
+            }
+            return real;
+        }
+
+        private DatabaseMetaData metaData(DatabaseMetaData delegate) {
+            return (DatabaseMetaData) Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                    new Class<?>[] { DatabaseMetaData.class }, (p, method, args) -> {
+                        switch (method.getName()) {
+                        case "getConnection":
+                            return proxy;
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        case "toString":
+                            return "SnapshotDatabaseMetaData[" + contextId + "]";
+                        default:
+                            String key = contextId + "|" + method.getName()
+                                    + (args == null ? "()" : Arrays.deepToString(args));
+                            return delegate == null ? replay(key) : record(key, call(delegate, method, args));
+                        }
+                    });
+        }
+
+        private PreparedStatement statement(String sql, PreparedStatement delegate) {
+            String key = contextId + "|" + QUERY_PREFIX + sql;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (p, method, args) -> {
+                        switch (method.getName()) {
+                        case "executeQuery":
+                            return delegate == null ? replay(key) : record(key, call(delegate, method, args));
+                        case "close":
+                            if (delegate != null) {
+                                delegate.close();
+                            }
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        case "toString":
+                            return "SnapshotPreparedStatement[" + sql + "]";
+                        default:
+                            // setFetchSize 等设置在回放时没有意义，直接忽略
+                            return delegate == null ? defaultValue(method.getReturnType())
+                                    : call(delegate, method, args);
+                        }
+                    });
+        }
+    }
+
+    private Object record(String key, Object value) throws SQLException {
+        if (value instanceof ResultSet) {
+            RecordedResultSet recorded;
+            try (ResultSet rs = (ResultSet) value) {
+                recorded = RecordedResultSet.copyOf(rs);
+            }
+            entries.put(key, recorded);
+            return recorded.replay();
+        }
+        if (value == null || value instanceof Serializable) {
+            entries.put(key, value == null ? NullValue.INSTANCE : value);
+        }
+        return value;
+    }
+
+    private Object replay(String key) throws SQLException {
+        Object value = entries.get(key);
+        if (value == null) {
+            throw new SQLException("schema 快照中没有记录 " + key + "，请使用 --snapshot=record 重新录制");
+        }
+        if (value instanceof RecordedResultSet) {
+            return ((RecordedResultSet) value).replay();
+        }
+        return value == NullValue.INSTANCE ? null : value;
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    // ---------------- 新鲜度检查 ----------------
+
+    /**
+     * 一次 getColumns 读取 context 所在库的全部列，只保留配置中的表，再逐表读取主键与索引，排序后计算指纹
+     */
+    @SuppressWarnings("unchecked")
+    static String columnsFingerprint(Connection connection, Context context) throws SQLException {
+        Set<String> tableNames = new TreeSet<>();
+        boolean allTables = false;
+        String catalog = null;
+        String schema = null;
+        for (TableConfiguration tableConfiguration : (List<TableConfiguration>) contextField(context,
+                "tableConfigurations")) {
+            String tableName = tableConfiguration.getTableName();
+            allTables |= tableName.contains("%");
+            tableNames.add(tableName.toLowerCase(Locale.ROOT));
+            if (tableConfiguration.getCatalog() != null) {
+                catalog = tableConfiguration.getCatalog();
+            }
+            if (tableConfiguration.getSchema() != null) {
+                schema = tableConfiguration.getSchema();
+            }
+        }
+        if (catalog == null) {
+            catalog = connection.getCatalog();
+        }
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<String> lines = new ArrayList<>();
+        // 数据库中实际保存的 catalog / schema / 表名，用于之后逐表读取主键与索引
+        Set<List<String>> tables = new LinkedHashSet<>();
+        try (ResultSet rs = metaData.getColumns(catalog, schema, "%", "%")) {
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                if (!allTables && !tableNames.contains(tableName.toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                tables.add(Arrays.asList(rs.getString("TABLE_CAT"), rs.getString("TABLE_SCHEM"), tableName));
+                lines.add(tableName + '|' + rs.getString("COLUMN_NAME") + '|' + rs.getInt("DATA_TYPE") + '|'
+                        + rs.getString("TYPE_NAME") + '|' + rs.getInt("COLUMN_SIZE") + '|'
+                        + rs.getInt("DECIMAL_DIGITS") + '|' + rs.getInt("NULLABLE") + '|'
+                        + rs.getString("COLUMN_DEF") + '|' + rs.getString("REMARKS"));
+            }
+        }
+        // 主键与索引决定生成的 ByPrimaryKey、分页与 findBy 方法，单独变化时快照同样视为过期
+        for (List<String> table : tables) {
+            try (ResultSet rs = metaData.getPrimaryKeys(table.get(0), table.get(1), table.get(2))) {
+                while (rs.next()) {
+                    lines.add(table.get(2) + "|pk|" + rs.getString("COLUMN_NAME") + '|' + rs.getShort("KEY_SEQ"));
+                }
+            }
+            try (ResultSet rs = metaData.getIndexInfo(table.get(0), table.get(1), table.get(2), false, true)) {
+                while (rs.next()) {
+                    if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                        continue;
+                    }
+                    lines.add(table.get(2) + "|index|" + rs.getString("INDEX_NAME") + '|'
+                            + rs.getBoolean("NON_UNIQUE") + '|' + rs.getShort("ORDINAL_POSITION") + '|'
+                            + rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        lines.sort(null);
+        // 配置的表名也计入指纹，增删表之后快照同样视为过期
+        return GenerationManifest.sha256(tableNames + "\n" + String.join("\n", lines));
+    }
+
+    private static Object contextField(Context context, String name) {
+        // Context 没有公开连接配置、表配置的 getter，这里直接读取字段
+        try {
+            java.lang.reflect.Field field = Context.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(context);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ConcurrentHashMap 不能存 null，记录返回 null 的元数据调用
+     */
+    private enum NullValue {
+        INSTANCE
+    }
+}
@@ -0,0 +1,30 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/*
+ * 由 SchemaSnapshot.open 写入各 context 的连接配置，MBG 通过反射创建，
+ * 连接统一交给当前的 SchemaSnapshot 录制或回放
+ */
+public class SnapshotConnectionFactory implements ConnectionFactory {
+
+    private String contextId;
+
+    @Override
+    public void addConfigurationProperties(Properties properties) {
+        contextId = properties.getProperty("contextId");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        SchemaSnapshot snapshot = SchemaSnapshot.current();
+        if (snapshot == null) {
+            throw new SQLException("schema 快照未打开");
+        }
+        return snapshot.connect(contextId);
+    }
+}
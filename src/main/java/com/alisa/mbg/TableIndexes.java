@@ -0,0 +1,186 @@
+package com.alisa.mbg;
+
+import org.mybatis.generator.api.FullyQualifiedTable;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/*
+ * 表的索引：VelocityCodeGeneratorPlugin 在 initialized 中通过 DatabaseMetaData.getIndexInfo 读取，保存为 IntrospectedTable 属性。
+ * BatchPlugin 据此生成 mapper 的 findBy 查询，模板据此生成 Service / Controller 方法；
+ * 每个唯一索引、普通索引以及组合索引的每个前缀对应一个 finder，与主键列相同的组合已有 selectByPrimaryKey，不再生成。
+ */
+final class TableIndexes {
+
+    /**
+     * IntrospectedTable 属性：List<Index>，读取失败或未挂 VelocityCodeGeneratorPlugin 时不存在
+     */
+    static final String ATTRIBUTE = "mbg.indexes";
+
+    static final class Index {
+        final String name;
+        final boolean unique;
+        final List<IntrospectedColumn> columns;
+
+        Index(String name, boolean unique, List<IntrospectedColumn> columns) {
+            this.name = name;
+            this.unique = unique;
+            this.columns = columns;
+        }
+    }
+
+    static final class Finder {
+        final String methodName;
+        final String path;
+        final boolean unique;
+        final List<IntrospectedColumn> columns;
+
+        private Finder(boolean unique, List<IntrospectedColumn> columns) {
+            this.unique = unique;
+            this.columns = columns;
+            List<String> properties = columns.stream().map(IntrospectedColumn::getJavaProperty)
+                    .collect(Collectors.toList());
+            this.methodName = "findBy" + properties.stream()
+                    .map(property -> property.substring(0, 1).toUpperCase() + property.substring(1))
+                    .collect(Collectors.joining("And"));
+            this.path = "/find-by-" + properties.stream()
+                    .map(property -> property.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase())
+                    .collect(Collectors.joining("-and-"));
+        }
+    }
+
+    private TableIndexes() {
+    }
+
+    /**
+     * 按索引名汇总 getIndexInfo 的各列，列顺序按 ORDINAL_POSITION；
+     * 跳过统计信息行，以及含表达式或列不在 IntrospectedTable 中（被 ignoredColumn 忽略）的索引
+     */
+    static List<Index> read(Connection connection, IntrospectedTable table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        FullyQualifiedTable fullyQualifiedTable = table.getFullyQualifiedTable();
+        String catalog = fullyQualifiedTable.getIntrospectedCatalog();
+        String schema = fullyQualifiedTable.getIntrospectedSchema();
+        String tableName = fullyQualifiedTable.getIntrospectedTableName();
+        // 与 DatabaseIntrospector 相同，按数据库保存标识符的大小写转换后精确匹配
+        if (metaData.storesLowerCaseIdentifiers()) {
+            catalog = catalog == null ? null : catalog.toLowerCase();
+            schema = schema == null ? null : schema.toLowerCase();
+            tableName = tableName.toLowerCase();
+        } else if (metaData.storesUpperCaseIdentifiers()) {
+            catalog = catalog == null ? null : catalog.toUpperCase();
+            schema = schema == null ? null : schema.toUpperCase();
+            tableName = tableName.toUpperCase();
+        }
+
+        Map<String, Boolean> uniqueByName = new LinkedHashMap<>();
+        Map<String, Map<Integer, String>> columnsByName = new LinkedHashMap<>();
+        Set<String> skipped = new HashSet<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, tableName, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                if (indexName == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                String columnName = rs.getString("COLUMN_NAME");
+                if (columnName == null) {
+                    skipped.add(indexName);
+                    continue;
+                }
+                uniqueByName.put(indexName, !rs.getBoolean("NON_UNIQUE"));
+                columnsByName.computeIfAbsent(indexName, name -> new TreeMap<>())
+                        .put((int) rs.getShort("ORDINAL_POSITION"), columnName);
+            }
+        }
+
+        List<Index> indexes = new ArrayList<>();
+        for (Map.Entry<String, Map<Integer, String>> entry : columnsByName.entrySet()) {
+            if (skipped.contains(entry.getKey())) {
+                continue;
+            }
+            List<IntrospectedColumn> columns = new ArrayList<>();
+            for (String columnName : entry.getValue().values()) {
+                IntrospectedColumn column = findColumn(table, columnName);
+                if (column == null) {
+                    columns = null;
+                    break;
+                }
+                columns.add(column);
+            }
+            if (columns != null) {
+                indexes.add(new Index(entry.getKey(), uniqueByName.get(entry.getKey()), columns));
+            }
+        }
+        return indexes;
+    }
+
+    private static IntrospectedColumn findColumn(IntrospectedTable table, String columnName) {
+        for (IntrospectedColumn column : table.getAllColumns()) {
+            if (column.getActualColumnName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    static boolean introspected(IntrospectedTable table) {
+        return table.getAttribute(ATTRIBUTE) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Index> indexes(IntrospectedTable table) {
+        Object indexes = table.getAttribute(ATTRIBUTE);
+        return indexes == null ? Collections.emptyList() : (List<Index>) indexes;
+    }
+
+    /**
+     * 按列组合去重；同一组合既是唯一索引的全部列、又是其它索引的前缀时，按唯一处理，只返回一行
+     */
+    static List<Finder> finders(IntrospectedTable table) {
+        Set<IntrospectedColumn> primaryKey = new HashSet<>(table.getPrimaryKeyColumns());
+        Map<List<IntrospectedColumn>, Boolean> uniqueByColumns = new LinkedHashMap<>();
+        for (Index index : indexes(table)) {
+            for (int length = 1; length <= index.columns.size(); length++) {
+                List<IntrospectedColumn> columns = index.columns.subList(0, length);
+                if (new HashSet<>(columns).equals(primaryKey)) {
+                    continue;
+                }
+                boolean unique = index.unique && length == index.columns.size();
+                uniqueByColumns.merge(new ArrayList<>(columns), unique, Boolean::logicalOr);
+            }
+        }
+        List<Finder> finders = new ArrayList<>();
+        for (Map.Entry<List<IntrospectedColumn>, Boolean> entry : uniqueByColumns.entrySet()) {
+            finders.add(new Finder(entry.getValue(), entry.getKey()));
+        }
+        return finders;
+    }
+
+    /**
+     * Filter 可以按任意非大字段列过滤，只有作为某个索引（含主键）首列的列才能走索引，其余列过滤时全表扫描
+     */
+    static List<IntrospectedColumn> unindexedFilterColumns(IntrospectedTable table) {
+        Set<IntrospectedColumn> leading = new HashSet<>();
+        if (!table.getPrimaryKeyColumns().isEmpty()) {
+            leading.add(table.getPrimaryKeyColumns().get(0));
+        }
+        for (Index index : indexes(table)) {
+            leading.add(index.columns.get(0));
+        }
+        return table.getNonBLOBColumns().stream().filter(column -> !leading.contains(column))
+                .collect(Collectors.toList());
+    }
+}
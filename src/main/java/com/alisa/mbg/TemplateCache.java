@@ -0,0 +1,156 @@
+package com.alisa.mbg;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.VelocityException;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 插件初始化时一次性解析全部模板并缓存 Template 对象，每张表的生成只做 merge。
+ * 默认从 classpath 的 templatePath 目录加载，配置 templateDir 后改为从该目录加载。
+ * VelocityEngine 按加载位置缓存，watch 模式下反复重建插件时只重新解析模板，不再重复初始化引擎。
+ */
+final class TemplateCache {
+
+    /**
+     * 模板名 -> 默认文件名，可通过插件属性 "模板名Template" 覆盖，例如 controllerTemplate
+     */
+    static final Map<String, String> DEFAULT_TEMPLATES;
+
+    static {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("controller", "controller.vm");
+        defaults.put("service", "service.vm");
+        defaults.put("serviceImpl", "serviceImpl.vm");
+        defaults.put("tsModel", "model_ts.vm");
+        defaults.put("apiConstants", "api_flat_ts.vm");
+        defaults.put("httpCache", "http_cache_ts.vm");
+        defaults.put("etags", "etags.vm");
+        defaults.put("inListBuckets", "in_list_buckets.vm");
+        defaults.put("localCache", "local_cache.vm");
+        defaults.put("metricsRecorder", "metrics_recorder.vm");
+        defaults.put("micrometerMetricsRecorder", "micrometer_metrics_recorder.vm");
+        defaults.put("dataSourceRoute", "data_source_route.vm");
+        defaults.put("routingDataSource", "routing_data_source.vm");
+        defaults.put("enum", "universal_enum.vm");
+        DEFAULT_TEMPLATES = Collections.unmodifiableMap(defaults);
+    }
+
+    // 加载位置 -> 已初始化的引擎；文件加载器默认不缓存模板，每次 getTemplate 都会读取最新内容
+    private static final Map<String, VelocityEngine> ENGINES = new ConcurrentHashMap<>();
+
+    private final Map<String, Template> templates;
+    private final Map<String, String> fingerprints;
+
+    private TemplateCache(Map<String, Template> templates, Map<String, String> fingerprints) {
+        this.templates = templates;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * 加载并解析配置中的全部模板，任何一个找不到或语法错误都会抛出异常，
+     * 异常信息汇总所有出错的模板
+     */
+    static TemplateCache load(Properties properties) {
+        String templateDir = properties.getProperty("templateDir");
+        String templatePath = properties.getProperty("templatePath", "templates");
+
+        boolean fromDir = templateDir != null && !templateDir.isEmpty();
+        String prefix = fromDir ? "" : templatePath.endsWith("/") ? templatePath : templatePath + "/";
+        VelocityEngine velocityEngine = ENGINES.computeIfAbsent(fromDir ? "file:" + templateDir : "class:",
+                key -> newEngine(templateDir));
+
+        Map<String, Template> templates = new LinkedHashMap<>();
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<String, String> entry : DEFAULT_TEMPLATES.entrySet()) {
+            String resourceName = prefix + properties.getProperty(entry.getKey() + "Template", entry.getValue());
+            try {
+                templates.put(entry.getKey(), velocityEngine.getTemplate(resourceName, "UTF-8"));
+                fingerprints.put(entry.getKey(), GenerationManifest.sha256(
+                        resourceName + '\n' + GenerationManifest.sha256(readSource(templateDir, resourceName))));
+            } catch (VelocityException | IOException e) {
+                errors.add(resourceName + ": " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("模板加载失败:\n  " + String.join("\n  ", errors));
+        }
+        return new TemplateCache(templates, fingerprints);
+    }
+
+    /**
+     * 从 templateDir 加载时全部模板文件的路径，供 watch 模式监听；从 classpath 加载时为空
+     */
+    static List<Path> templateFiles(Properties properties) {
+        String templateDir = properties.getProperty("templateDir");
+        List<Path> files = new ArrayList<>();
+        if (templateDir != null && !templateDir.isEmpty()) {
+            for (Map.Entry<String, String> entry : DEFAULT_TEMPLATES.entrySet()) {
+                files.add(Paths.get(templateDir, properties.getProperty(entry.getKey() + "Template", entry.getValue()))
+                        .toAbsolutePath().normalize());
+            }
+        }
+        return files;
+    }
+
+    private static VelocityEngine newEngine(String templateDir) {
+        Properties engineProperties = new Properties();
+        if (templateDir != null && !templateDir.isEmpty()) {
+            engineProperties.setProperty(RuntimeConstants.RESOURCE_LOADERS, "file");
+            engineProperties.setProperty("resource.loader.file.path", templateDir);
+        } else {
+            engineProperties.setProperty(RuntimeConstants.RESOURCE_LOADERS, "class");
+            engineProperties.setProperty("resource.loader.class.class", ClasspathResourceLoader.class.getName());
+        }
+        VelocityEngine velocityEngine = new VelocityEngine(engineProperties);
+        velocityEngine.init();
+        return velocityEngine;
+    }
+
+    /**
+     * 按与资源加载器相同的位置读取模板原文，用于计算指纹
+     */
+    private static byte[] readSource(String templateDir, String resourceName) throws IOException {
+        if (templateDir != null && !templateDir.isEmpty()) {
+            return Files.readAllBytes(Paths.get(templateDir, resourceName));
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = TemplateCache.class.getClassLoader();
+        }
+        try (InputStream in = classLoader.getResourceAsStream(resourceName)) {
+            if (in == null) {
+                throw new IOException("Unable to find resource '" + resourceName + "'");
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * 模板名 -> 模板文件名与原文的指纹，用于判断哪些模板修改过、哪些产物需要重新渲染
+     */
+    Map<String, String> fingerprints() {
+        return fingerprints;
+    }
+
+    void merge(String name, VelocityContext velocityContext, Writer writer) {
+        templates.get(name).merge(velocityContext, writer);
+    }
+}
@@ -1,7 +1,7 @@
 package com.alisa.mbg;
 
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.JavaFormatter;
 import org.mybatis.generator.api.PluginAdapter;
@@ -14,19 +14,43 @@ import org.mybatis.generator.api.dom.java.JavaVisibility;
 import org.mybatis.generator.api.dom.java.Method;
 import org.mybatis.generator.api.dom.java.TopLevelClass;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /*
  * 该插件可以配置生成entity、dto、mapper、service、controller等类
  * 且定义这些类的名字和生成的包名和位置
  */
 public class VelocityCodeGeneratorPlugin extends PluginAdapter {
-    private VelocityEngine velocityEngine;
-    private String templatePath;
+    // 表级配置项，不属于枚举的列映射
+    private static final List<String> TABLE_OPTIONS = Arrays.asList("generateEnum", "constantProperty",
+            "keyProperty", "cacheEnabled", "cacheMaxSize", "cacheTtlSeconds", "summaryMaxLength",
+            "versionColumn");
+
+    private TemplateCache templateCache;
+    private GenerationManifest manifest;
     private String dtoPackage;
     private String modelPackage;
     private String mapperPackage;
@@ -35,14 +59,37 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
     private String targetServicePackage;
     private String targetServiceImplPackage;
     private String targetProject;
-    private java.util.List<String> modelNames = new java.util.ArrayList<>();
+    private String utilPackage;
+    private List<Integer> inListBuckets;
+    private int batchMaxRows;
+    private int batchMaxBytes;
+    private String batchUpsertMode;
+    private boolean metricsEnabled;
+    private String metricsBackend;
+    private String metricsName;
+    private boolean readWriteRouting;
+    private long readYourWritesMillis;
+    // 表按配置顺序登记，保证 api-constants.ts 输出稳定；渲染线程只读
+    private final List<String> modelNames = Collections.synchronizedList(new ArrayList<>());
+    // 表 -> 该表 findBy 接口的常量名与路径，供 api-constants.ts 使用
+    private final Map<String, List<Map<String, Object>>> modelFinders = new ConcurrentHashMap<>();
+    // 表 -> multiGetEnabled / keysetEnabled，与 Controller 是否生成 /get-by-ids、/page 的条件一致
+    private final Map<String, Map<String, Object>> modelFlags = new ConcurrentHashMap<>();
+    // renderThreads > 0 时每张表的模板渲染与写文件交给线程池，生成线程只负责提交
+    private ExecutorService renderExecutor;
+    private final List<Future<?>> pendingRenders = new ArrayList<>();
+    // 枚举数据查询共用的连接，大小与渲染线程数一致，多张表的查询可以并发执行
+    private ConnectionPool connectionPool;
+    private int enumFetchSize;
+    private List<String> warnings = new ArrayList<>();
+    // 尚未释放线程池与连接的插件实例；生成中途失败时 contextGenerateAdditionalJavaFiles 不会被调用，由调用方统一释放
+    private static final Set<VelocityCodeGeneratorPlugin> ACTIVE = ConcurrentHashMap.newKeySet();
 
     @Override
     public void setProperties(Properties properties) {
         super.setProperties(properties);
         dtoPackage = properties.getProperty("dtoPackage", "com.example.demo.dto");
         super.setProperties(properties);
-        templatePath = properties.getProperty("templatePath", "src/main/resources/templates");
         targetControllerPackage = properties.getProperty("targetControllerPackage",
                 "com.example.demo.controller");
         targetServicePackage = properties.getProperty("targetServicePackage", "com.example.demo.service");
@@ -51,12 +98,50 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         mapperPackage = properties.getProperty("mapperPackage", "com.example.demo.mapper");
         enumPackage = properties.getProperty("enumPackage", "com.example.demo.emums");
         targetProject = properties.getProperty("targetProject", "src/main/java");
-        properties.setProperty("file.resource.loader.path", "target/classes");
-        velocityEngine = new VelocityEngine(properties);
+        // 生成的公共工具类所在包，默认与 Result 所在包一致
+        utilPackage = properties.getProperty("utilPackage", "com.alisa.util");
+        // IN 列表的固定长度档位，参数个数补齐到档位以复用预编译语句
+        inListBuckets = parseInListBuckets(properties.getProperty("inListBuckets", "1,8,32,128,512"));
+        // batchUpsert 分批：单批行数上限与单条 SQL 字节上限（默认取 MySQL 5.7 max_allowed_packet 4MB 的一半）
+        batchMaxRows = Integer.parseInt(properties.getProperty("batchMaxRows", "1000"));
+        batchMaxBytes = Integer.parseInt(properties.getProperty("batchMaxBytes", "2097152"));
+        // values: 多行 VALUES 单条语句；executor: ExecutorType.BATCH 逐行 upsert 并定期 flush
+        batchUpsertMode = properties.getProperty("batchUpsertMode", "values");
+        // metricsEnabled=true 时 Service 方法按表、按操作记录耗时与批大小；
+        // metricsBackend: noop 只生成 MetricsRecorder 接口，micrometer 另外生成 Micrometer 实现
+        metricsEnabled = Boolean.parseBoolean(properties.getProperty("metricsEnabled", "false"));
+        metricsBackend = properties.getProperty("metricsBackend", "noop");
+        metricsName = properties.getProperty("metricsName", "mbg.repository");
+        // readWriteRouting=true 时 Service 读方法走从库、写方法走主库，写入后 readYourWritesMillis 内该表的读仍走主库
+        readWriteRouting = Boolean.parseBoolean(properties.getProperty("readWriteRouting", "false"));
+        readYourWritesMillis = Long.parseLong(properties.getProperty("readYourWritesMillis", "1000"));
+        // 与 BatchPlugin 的 cursorFetchSize 相同：MySQL 需要 Integer.MIN_VALUE 才会流式返回，其它驱动配置为正数
+        enumFetchSize = Integer.parseInt(properties.getProperty("enumFetchSize",
+                String.valueOf(Integer.MIN_VALUE)));
+        int renderThreads = Integer.parseInt(properties.getProperty("renderThreads", "0"));
+        connectionPool = new ConnectionPool(context, renderThreads);
+        if (renderThreads > 0) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            renderExecutor = Executors.newFixedThreadPool(renderThreads, runnable -> {
+                Thread thread = new Thread(runnable, "velocity-render-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        ACTIVE.add(this);
+        // 模板在初始化时一次解析完毕，渲染线程只做 merge
+        templateCache = TemplateCache.load(properties);
+        // 插件属性有任何变化，所有表都需要重新渲染；模板按各自的指纹，只重新渲染修改过的
+        // 全量输出时忽略上一次的清单：清单位置取决于 targetProject，由插件自己判断，不靠调用方删除
+        manifest = GenerationManifest.load(targetProject, OutputSink.current().incremental());
+        manifest.setContextFingerprint(GenerationManifest.propertiesFingerprint(properties));
+        manifest.setTemplateFingerprints(templateCache.fingerprints());
     }
 
     @Override
     public boolean validate(List<String> warnings) {
+        // 与 MyBatisGenerator 的警告列表是同一个，生成结束后统一输出
+        this.warnings = warnings;
         return true;
     }
 
@@ -68,6 +153,36 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         String newFullType = dtoPackage + "." + newClassName;
 
         introspectedTable.setExampleType(newFullType);
+        introspectIndexes(introspectedTable);
+    }
+
+    /**
+     * 读取表的索引，供 findBy 方法生成，并提示 Filter 中没有索引的条件字段；
+     * watch 模式复用表结构时索引已随 IntrospectedTable 复制，不再查询
+     */
+    private void introspectIndexes(IntrospectedTable introspectedTable) {
+        String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
+        if (!TableIndexes.introspected(introspectedTable)) {
+            Connection conn = null;
+            try {
+                conn = connectionPool.borrow();
+                introspectedTable.setAttribute(TableIndexes.ATTRIBUTE, TableIndexes.read(conn, introspectedTable));
+            } catch (SQLException e) {
+                warnings.add("[VelocityCodeGeneratorPlugin] 读取表 " + tableName + " 的索引失败，不生成 findBy 方法: "
+                        + e.getMessage());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                connectionPool.release(conn);
+            }
+        }
+        List<IntrospectedColumn> unindexed = TableIndexes.unindexedFilterColumns(introspectedTable);
+        if (!unindexed.isEmpty()) {
+            warnings.add("[VelocityCodeGeneratorPlugin] 表 " + tableName + " 的 Filter 条件字段没有索引，按这些字段过滤会全表扫描: "
+                    + unindexed.stream().map(IntrospectedColumn::getJavaProperty).collect(Collectors.joining(", ")));
+        }
     }
 
     @Override
@@ -81,7 +196,8 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
 
     @Override
     public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
-        generateCustomExample(topLevelClass, introspectedTable);
+        GenerationReport.current().time(introspectedTable.getFullyQualifiedTable().getDomainObjectName(), "filter",
+                () -> generateCustomExample(topLevelClass, introspectedTable));
         return false;
     }
 
@@ -89,26 +205,249 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
     public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
         String modelName = introspectedTable.getFullyQualifiedTable().getDomainObjectName();
         modelNames.add(modelName);
+        modelFinders.put(modelName, finderModels(introspectedTable));
+        Map<String, Object> flags = new HashMap<>();
+        flags.put("multiGetEnabled", BatchPlugin.supportsMultiGet(introspectedTable));
+        flags.put("keysetEnabled", BatchPlugin.supportsKeyset(introspectedTable));
+        modelFlags.put(modelName, flags);
         String pkType = "String";
         if (!introspectedTable.getPrimaryKeyColumns().isEmpty()) {
             pkType = introspectedTable.getPrimaryKeyColumns().get(0)
                     .getFullyQualifiedJavaType().getShortName();
         }
 
-        generateControllerCode(modelName, targetControllerPackage, pkType);
-        generateServiceCode(modelName, targetServicePackage, pkType);
-        generateServiceImplCode(modelName, targetServiceImplPackage, pkType);
-        generateTsModelCode(modelName, topLevelClass.getFields());
-        generateUniversalEnum(introspectedTable);
+        // 表结构、插件属性都没变时，只渲染模板修改过或产物缺失的文件；枚举取决于表数据，始终重新生成
+        boolean tableUnchanged = manifest.tableUnchanged(modelName,
+                GenerationManifest.tableFingerprint(introspectedTable));
+        boolean controller = needsRender(tableUnchanged, "controller", controllerPath(modelName));
+        boolean service = needsRender(tableUnchanged, "service", servicePath(modelName));
+        boolean serviceImpl = needsRender(tableUnchanged, "serviceImpl", serviceImplPath(modelName));
+        boolean tsModel = needsRender(tableUnchanged, "tsModel", tsModelPath(modelName));
+
+        // 字段列表拷贝一份，避免后续插件修改 topLevelClass 时与渲染线程并发访问
+        List<Field> fields = new ArrayList<>(topLevelClass.getFields());
+        String finalPkType = pkType;
+        GenerationReport report = GenerationReport.current();
+        Runnable render = () -> {
+            if (!controller && !service && !serviceImpl && !tsModel) {
+                report.recordUnchanged(modelName);
+            }
+            if (controller) {
+                report.time(modelName, "controller",
+                        () -> generateControllerCode(modelName, targetControllerPackage, finalPkType, introspectedTable));
+            }
+            if (service) {
+                report.time(modelName, "service",
+                        () -> generateServiceCode(modelName, targetServicePackage, finalPkType, introspectedTable));
+            }
+            if (serviceImpl) {
+                report.time(modelName, "serviceImpl", () -> generateServiceImplCode(modelName,
+                        targetServiceImplPackage, finalPkType, introspectedTable));
+            }
+            if (tsModel) {
+                report.time(modelName, "tsModel", () -> generateTsModelCode(modelName, fields));
+            }
+            generateUniversalEnum(introspectedTable);
+        };
+        if (renderExecutor == null) {
+            render.run();
+        } else {
+            pendingRenders.add(renderExecutor.submit(render));
+        }
         return true;
     }
 
     @Override
     public List<org.mybatis.generator.api.GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
-        generateFlatApiConstants();
+        try {
+            awaitPendingRenders();
+        } finally {
+            connectionPool.close();
+            ACTIVE.remove(this);
+        }
+        GenerationReport report = GenerationReport.current();
+        report.time(null, "apiConstants", this::generateFlatApiConstants);
+        report.time(null, "httpCache", this::generateHttpCache);
+        report.time(null, "etags", this::generateETags);
+        report.time(null, "inListBuckets", this::generateInListBuckets);
+        report.time(null, "localCache", this::generateLocalCache);
+        if (metricsEnabled) {
+            report.time(null, "metricsRecorder", this::generateMetricsRecorder);
+        }
+        if (readWriteRouting) {
+            report.time(null, "dataSourceRoute", this::generateDataSourceRouting);
+        }
+        try {
+            manifest.save();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return super.contextGenerateAdditionalJavaFiles();
     }
 
+    private boolean needsRender(boolean tableUnchanged, String template, String path) {
+        File file = new File(path);
+        if (!tableUnchanged || !manifest.templateUnchanged(template) || !OutputSink.current().exists(file)) {
+            return true;
+        }
+        OutputSink.current().keep(file);
+        return false;
+    }
+
+    /**
+     * 释放本轮生成中未走到 contextGenerateAdditionalJavaFiles 的插件：中断渲染任务，等任务归还连接后关闭连接池。
+     * MbgApplication 与 GenerationDaemon 在每轮生成结束时调用，守护进程每轮都会创建新的插件实例
+     */
+    static void releaseAll() {
+        for (VelocityCodeGeneratorPlugin plugin : ACTIVE) {
+            plugin.release();
+        }
+    }
+
+    private void release() {
+        ACTIVE.remove(this);
+        if (renderExecutor != null) {
+            pendingRenders.clear();
+            renderExecutor.shutdownNow();
+            try {
+                renderExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            renderExecutor = null;
+        }
+        connectionPool.close();
+    }
+
+    /**
+     * 汇总文件依赖全部表的渲染结果，输出前先等待线程池中的任务完成；
+     * 任何一张表渲染失败，都在全部任务结束后抛出，由调用方放弃本次输出
+     */
+    private void awaitPendingRenders() {
+        if (renderExecutor == null) {
+            return;
+        }
+        RuntimeException failure = null;
+        try {
+            for (Future<?> future : pendingRenders) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                                : new IllegalStateException(e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IllegalStateException interrupted = new IllegalStateException("等待渲染任务时被中断", e);
+            if (failure != null) {
+                interrupted.addSuppressed(failure);
+            }
+            failure = interrupted;
+        } finally {
+            pendingRenders.clear();
+            renderExecutor.shutdown();
+            renderExecutor = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Controller / Service / ServiceImpl 模板共用的表级开关，决定生成哪些可选方法
+     */
+    private void putTableFlags(VelocityContext velocityContext, IntrospectedTable introspectedTable) {
+        velocityContext.put("multiGetEnabled", BatchPlugin.supportsMultiGet(introspectedTable));
+        velocityContext.put("keysetEnabled", BatchPlugin.supportsKeyset(introspectedTable));
+        // 列表接口改用 BatchPlugin 生成的摘要查询，不读取大字段
+        boolean summaryEnabled = BatchPlugin.supportsSummary(introspectedTable);
+        velocityContext.put("summaryEnabled", summaryEnabled);
+        if (summaryEnabled) {
+            velocityContext.put("summaryExcluded", BatchPlugin.summaryExcludedColumns(introspectedTable).stream()
+                    .map(IntrospectedColumn::getJavaProperty)
+                    .collect(Collectors.joining(", ")));
+        }
+        // 按索引生成的 findBy 方法
+        List<Map<String, Object>> finders = finderModels(introspectedTable);
+        velocityContext.put("finders", finders);
+        Set<String> finderImports = new TreeSet<>();
+        boolean finderDateParams = false;
+        for (TableIndexes.Finder finder : TableIndexes.finders(introspectedTable)) {
+            for (IntrospectedColumn column : finder.columns) {
+                FullyQualifiedJavaType type = column.getFullyQualifiedJavaType();
+                if (type.isExplicitlyImported()) {
+                    finderImports.add(type.getFullyQualifiedNameWithoutTypeParameters());
+                }
+                finderDateParams |= "java.util.Date".equals(type.getFullyQualifiedNameWithoutTypeParameters());
+            }
+        }
+        velocityContext.put("finderImports", finderImports);
+        velocityContext.put("finderDateParams", finderDateParams);
+        // 条件 GET：配置了版本列时按版本戳计算 ETag，304 时不再查询数据；否则对响应体计算 ETag
+        IntrospectedColumn versionColumn = BatchPlugin.versionColumn(introspectedTable);
+        velocityContext.put("versionEnabled", versionColumn != null);
+        // 开启读缓存时 getById 的 ETag 直接取缓存行的版本列，命中缓存时不再单独查询版本
+        boolean versionById = BatchPlugin.supportsVersionById(introspectedTable);
+        boolean cacheEnabled = cacheEnabled(introspectedTable);
+        velocityContext.put("versionByIdEnabled", versionById && !cacheEnabled);
+        velocityContext.put("versionFromCache", versionById && cacheEnabled);
+        if (versionColumn != null) {
+            String versionProperty = versionColumn.getJavaProperty();
+            velocityContext.put("versionGetter",
+                    "get" + versionProperty.substring(0, 1).toUpperCase() + versionProperty.substring(1));
+            FullyQualifiedJavaType versionType = versionColumn.getFullyQualifiedJavaType();
+            velocityContext.put("versionType", versionType.getShortName());
+            velocityContext.put("versionImport", versionType.isExplicitlyImported()
+                    ? versionType.getFullyQualifiedNameWithoutTypeParameters() : null);
+            // java.util.Date 的版本列同时输出 Last-Modified，其它类型只用 ETag
+            velocityContext.put("versionLastModified",
+                    "java.util.Date".equals(versionType.getFullyQualifiedNameWithoutTypeParameters()));
+        }
+    }
+
+    private static boolean cacheEnabled(IntrospectedTable introspectedTable) {
+        return Boolean.parseBoolean(introspectedTable.getTableConfiguration().getProperties()
+                .getProperty("cacheEnabled")) && introspectedTable.getPrimaryKeyColumns().size() == 1;
+    }
+
+    /**
+     * 模板中的 finder：方法名、接口路径，以及 Service 签名、调用实参与 Controller 签名中的参数列表
+     */
+    private static List<Map<String, Object>> finderModels(IntrospectedTable introspectedTable) {
+        String modelName = introspectedTable.getFullyQualifiedTable().getDomainObjectName();
+        List<Map<String, Object>> models = new ArrayList<>();
+        for (TableIndexes.Finder finder : TableIndexes.finders(introspectedTable)) {
+            List<String> params = new ArrayList<>();
+            List<String> args = new ArrayList<>();
+            List<String> requestParams = new ArrayList<>();
+            for (IntrospectedColumn column : finder.columns) {
+                FullyQualifiedJavaType type = column.getFullyQualifiedJavaType();
+                String param = type.getShortName() + " " + column.getJavaProperty();
+                params.add(param);
+                args.add(column.getJavaProperty());
+                requestParams.add("java.util.Date".equals(type.getFullyQualifiedNameWithoutTypeParameters())
+                        ? "@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) " + param
+                        : "@RequestParam " + param);
+            }
+            Map<String, Object> model = new HashMap<>();
+            model.put("methodName", finder.methodName);
+            model.put("path", finder.path);
+            model.put("constant", finder.path.substring(1).replace('-', '_').toUpperCase());
+            model.put("unique", finder.unique);
+            model.put("returnType", finder.unique ? modelName : "List<" + modelName + ">");
+            model.put("params", String.join(", ", params));
+            model.put("args", String.join(", ", args));
+            model.put("requestParams", String.join(", ", requestParams));
+            models.add(model);
+        }
+        return models;
+    }
+
     private void generateCustomExample(TopLevelClass modelClass, IntrospectedTable introspectedTable) {
         String exampleClassName = modelClass.getType().getShortName();
         TopLevelClass exampleClass = new TopLevelClass(dtoPackage + "." + exampleClassName);
@@ -127,51 +466,30 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
             exampleClass.addInnerClass(innerClass);
         }
 
-        try {
-            String filtPath = targetProject + "/" + dtoPackage.replace('.', '/') + "/" +
-                    exampleClassName + ".java";
-            File exampleFile = new File(filtPath);
-            if (!exampleFile.getParentFile().exists()) {
-                exampleFile.getParentFile().mkdirs();
-            }
-            try (FileWriter writer = new FileWriter(exampleFile)) {
-                JavaFormatter formatter = new DefaultJavaFormatter();
-                String formattedContent = formatter.getFormattedContent(exampleClass);
-                writer.write(formattedContent);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        JavaFormatter formatter = new DefaultJavaFormatter();
+        writeFile(javaPath(dtoPackage, exampleClassName), formatter.getFormattedContent(exampleClass));
     }
 
-    private void generateControllerCode(String modelName, String targetControllerPackage, String pkType) {
+    private void generateControllerCode(String modelName, String targetControllerPackage, String pkType,
+            IntrospectedTable introspectedTable) {
         VelocityContext velocityContext = new VelocityContext();
+        putTableFlags(velocityContext, introspectedTable);
 
         velocityContext.put("modelName", modelName);
         velocityContext.put("modelNameLower", modelName.toLowerCase());
         velocityContext.put("modelPackageName", modelPackage);
         velocityContext.put("controllerPackageName", targetControllerPackage);
         velocityContext.put("servicePackageName", targetServicePackage);
+        velocityContext.put("utilPackageName", utilPackage);
         velocityContext.put("pkType", pkType);
 
-        try {
-            String filtPath = targetProject + "/" + targetControllerPackage.replace('.', '/') + "/" + modelName
-                    + "Controller.java";
-            File exampleFile = new File(filtPath);
-            if (!exampleFile.getParentFile().exists()) {
-                exampleFile.getParentFile().mkdirs();
-            }
-            try (FileWriter writer = new FileWriter(exampleFile)) {
-                velocityEngine.mergeTemplate(templatePath + "/controller.vm", "UTF-8", velocityContext, writer);
-
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        renderToFile("controller", velocityContext, controllerPath(modelName));
     }
 
-    private void generateServiceCode(String modelName, String packageName, String pkType) {
+    private void generateServiceCode(String modelName, String packageName, String pkType,
+            IntrospectedTable introspectedTable) {
         VelocityContext velocityContext = new VelocityContext();
+        putTableFlags(velocityContext, introspectedTable);
 
         velocityContext.put("modelName", modelName);
         velocityContext.put("modelNameLower", modelName.toLowerCase());
@@ -179,24 +497,19 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         velocityContext.put("servicePackageName", targetServicePackage);
         velocityContext.put("pkType", pkType);
 
-        try {
-            String filtPath = targetProject + "/" + targetServicePackage.replace('.', '/') + "/" + modelName
-                    + "Service.java";
-            File exampleFile = new File(filtPath);
-            if (!exampleFile.getParentFile().exists()) {
-                exampleFile.getParentFile().mkdirs();
-            }
-            try (FileWriter writer = new FileWriter(exampleFile)) {
-                velocityEngine.mergeTemplate(templatePath + "/service.vm", "UTF-8", velocityContext, writer);
-
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        renderToFile("service", velocityContext, servicePath(modelName));
     }
 
-    private void generateServiceImplCode(String modelName, String packageName, String pkType) {
+    private void generateServiceImplCode(String modelName, String packageName, String pkType,
+            IntrospectedTable introspectedTable) {
+        int rowBytes = BatchPlugin.estimateRowBytes(introspectedTable);
+        int batchChunkSize = Math.max(1, Math.min(batchMaxRows, batchMaxBytes / rowBytes));
+        // executor 模式依赖逐行 upsert，没有主键的表不会生成 upsert，退回 VALUES 模式
+        boolean batchExecutor = "executor".equalsIgnoreCase(batchUpsertMode)
+                && introspectedTable.hasPrimaryKeyColumns();
+
         VelocityContext velocityContext = new VelocityContext();
+        putTableFlags(velocityContext, introspectedTable);
 
         velocityContext.put("modelName", modelName);
         velocityContext.put("modelNameLower", modelName.toLowerCase());
@@ -204,67 +517,123 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         velocityContext.put("mapperPackageName", mapperPackage);
         velocityContext.put("servicePackageName", targetServicePackage);
         velocityContext.put("serviceImplPackageName", targetServiceImplPackage);
+        velocityContext.put("utilPackageName", utilPackage);
         velocityContext.put("pkType", pkType);
-
-        try {
-            String filtPath = targetProject + "/" + targetServiceImplPackage.replace('.', '/') + "/" + modelName
-                    + "ServiceImpl.java";
-            File exampleFile = new File(filtPath);
-            if (!exampleFile.getParentFile().exists()) {
-                exampleFile.getParentFile().mkdirs();
-            }
-            try (FileWriter writer = new FileWriter(exampleFile)) {
-                velocityEngine.mergeTemplate(templatePath + "/serviceImpl.vm", "UTF-8", velocityContext, writer);
-
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        velocityContext.put("rowBytes", rowBytes);
+        velocityContext.put("batchChunkSize", batchChunkSize);
+        velocityContext.put("batchExecutor", batchExecutor);
+        velocityContext.put("metricsEnabled", metricsEnabled);
+        velocityContext.put("routingEnabled", readWriteRouting);
+        velocityContext.put("tableName", introspectedTable.getFullyQualifiedTable().getIntrospectedTableName());
+
+        // 表级属性 cacheEnabled=true 时 getById 走进程内读缓存，写方法按主键失效；仅支持单列主键
+        Properties tableProps = introspectedTable.getTableConfiguration().getProperties();
+        boolean cacheEnabled = cacheEnabled(introspectedTable);
+        velocityContext.put("cacheEnabled", cacheEnabled);
+        if (cacheEnabled) {
+            String pkProperty = introspectedTable.getPrimaryKeyColumns().get(0).getJavaProperty();
+            velocityContext.put("pkGetter", "get" + pkProperty.substring(0, 1).toUpperCase() + pkProperty.substring(1));
+            velocityContext.put("cacheMaxSize", Integer.parseInt(tableProps.getProperty("cacheMaxSize", "10000")));
+            velocityContext.put("cacheTtlSeconds", Long.parseLong(tableProps.getProperty("cacheTtlSeconds", "300")));
         }
+
+        renderToFile("serviceImpl", velocityContext, serviceImplPath(modelName));
     }
 
     private void generateTsModelCode(String modelName, List<Field> fields) {
         VelocityContext velocityContext = new VelocityContext();
         velocityContext.put("modelName", modelName);
         velocityContext.put("fields", fields); // 核心：把 Java 字段列表传给模板
-        try {
-            // 设置 TS 文件输出路径，通常放在前端目录或 resources 下
-            String tsPath = targetProject + "/ts/model/" + modelName
-                    + ".ts";
-            File tsFile = new File(tsPath);
-            if (!tsFile.getParentFile().exists()) {
-                tsFile.getParentFile().mkdirs();
-            }
-            try (FileWriter writer = new FileWriter(tsFile)) {
-                // 使用新的 TS 模板
-                velocityEngine.mergeTemplate(templatePath + "/model_ts.vm", "UTF-8", velocityContext, writer);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        // TS 文件通常放在前端目录或 resources 下
+        renderToFile("tsModel", velocityContext, tsModelPath(modelName));
     }
 
     private void generateFlatApiConstants() {
         VelocityContext velocityContext = new VelocityContext();
         velocityContext.put("modelNames", modelNames);
+        velocityContext.put("modelFinders", modelFinders);
+        velocityContext.put("modelFlags", modelFlags);
 
-        try {
-            String tsPath = targetProject + "/ts/api-constants.ts";
-            File tsFile = new File(tsPath);
-            if (!tsFile.getParentFile().exists()) {
-                tsFile.getParentFile().mkdirs();
+        renderToFile("apiConstants", velocityContext, targetProject + "/ts/api-constants.ts");
+    }
+
+    private void generateHttpCache() {
+        renderToFile("httpCache", new VelocityContext(), targetProject + "/ts/http-cache.ts");
+    }
+
+    private void generateETags() {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("packageName", utilPackage);
+        renderToFile("etags", velocityContext, javaPath(utilPackage, "ETags"));
+    }
+
+    private void generateInListBuckets() {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("packageName", utilPackage);
+        velocityContext.put("buckets", inListBuckets);
+
+        renderToFile("inListBuckets", velocityContext, javaPath(utilPackage, "InListBuckets"));
+    }
+
+    /**
+     * 档位升序去重；生成的 InListBuckets 在类初始化时按档位补齐，空档位或非正数档位会在运行时才失败，这里提前拒绝
+     */
+    private static List<Integer> parseInListBuckets(String value) {
+        Set<Integer> buckets = new TreeSet<>();
+        for (String bucket : value.split(",")) {
+            bucket = bucket.trim();
+            if (bucket.isEmpty()) {
+                continue;
             }
-            try (FileWriter writer = new FileWriter(tsFile)) {
-                velocityEngine.mergeTemplate(templatePath + "/api_flat_ts.vm", "UTF-8", velocityContext, writer);
+            int size;
+            try {
+                size = Integer.parseInt(bucket);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("inListBuckets 只能是逗号分隔的正整数: " + value);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (size <= 0) {
+                throw new IllegalStateException("inListBuckets 只能是逗号分隔的正整数: " + value);
+            }
+            buckets.add(size);
+        }
+        if (buckets.isEmpty()) {
+            throw new IllegalStateException("inListBuckets 至少需要一个档位");
         }
+        return new ArrayList<>(buckets);
+    }
+
+    private void generateLocalCache() {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("packageName", utilPackage);
+        renderToFile("localCache", velocityContext, javaPath(utilPackage, "LocalCache"));
+    }
+
+    private void generateMetricsRecorder() {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("packageName", utilPackage);
+        velocityContext.put("metricsName", metricsName);
+        renderToFile("metricsRecorder", velocityContext, javaPath(utilPackage, "MetricsRecorder"));
+        if ("micrometer".equalsIgnoreCase(metricsBackend)) {
+            renderToFile("micrometerMetricsRecorder", velocityContext,
+                    javaPath(utilPackage, "MicrometerMetricsRecorder"));
+        }
+    }
+
+    private void generateDataSourceRouting() {
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("packageName", utilPackage);
+        velocityContext.put("readYourWritesMillis", readYourWritesMillis);
+        renderToFile("dataSourceRoute", velocityContext, javaPath(utilPackage, "DataSourceRoute"));
+        renderToFile("routingDataSource", velocityContext, javaPath(utilPackage, "RoutingDataSource"));
     }
 
     private void generateUniversalEnum(IntrospectedTable introspectedTable) {
         String domainName = introspectedTable.getFullyQualifiedTable().getDomainObjectName();
         String tableName = introspectedTable.getFullyQualifiedTable().getIntrospectedTableName();
         Properties props = introspectedTable.getTableConfiguration().getProperties();
+        if (!Boolean.parseBoolean(props.getProperty("generateEnum"))) {
+            return;
+        }
 
         String constantProperty = props.getProperty("constantProperty");
         String keyProperty = props.getProperty("keyProperty");
@@ -272,7 +641,7 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         java.util.LinkedHashMap<String, String> columnMapping = new java.util.LinkedHashMap<>();
         for (Object key : props.keySet()) {
             String propName = (String) key;
-            if (!Arrays.asList("generateEnum", "constantProperty", "keyProperty").contains(propName)) {
+            if (!TABLE_OPTIONS.contains(propName)) {
                 columnMapping.put(propName, props.getProperty(propName));
             }
         }
@@ -280,45 +649,139 @@ public class VelocityCodeGeneratorPlugin extends PluginAdapter {
         if (columnMapping.isEmpty())
             return;
 
-        List<java.util.Map<String, String>> dataList = new java.util.ArrayList<>();
         String sql = "SELECT " + String.join(", ", columnMapping.values()) + " FROM " + tableName;
 
-        try (java.sql.Connection conn = context.getConnection();
-                java.sql.Statement stmt = conn.createStatement();
-                java.sql.ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                java.util.Map<String, String> row = new java.util.HashMap<>();
-                for (java.util.Map.Entry<String, String> entry : columnMapping.entrySet()) {
-                    row.put(entry.getKey(), rs.getString(entry.getValue()));
-                }
-                dataList.add(row);
-            }
-        } catch (java.sql.SQLException e) {
-            e.printStackTrace();
-        }
-
         VelocityContext velocityContext = new VelocityContext();
         velocityContext.put("packageName", this.enumPackage);
         velocityContext.put("className", domainName);
-        velocityContext.put("items", dataList);
         velocityContext.put("propNames", new java.util.ArrayList<>(columnMapping.keySet()));
         velocityContext.put("constantProperty", constantProperty);
         velocityContext.put("keyProperty", keyProperty);
+        velocityContext.put("lookups", buildEnumLookups(columnMapping.keySet(), keyProperty));
 
+        // 边读结果集边渲染，数据行不在内存中整体缓存
+        GenerationReport report = GenerationReport.current();
+        long start = System.nanoTime();
+        Connection conn = null;
         try {
-            String packagePath = this.enumPackage.replace('.', '/');
-            String enumPath = targetProject + "/" + packagePath + "/" + domainName + ".java";
+            conn = connectionPool.borrow();
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(enumFetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    long queryNanos = System.nanoTime() - start;
+                    ResultSetRows rows = new ResultSetRows(rs, columnMapping);
+                    velocityContext.put("items", rows);
+                    renderToFile("enum", velocityContext, javaPath(this.enumPackage, domainName));
+                    report.recordEnumQuery(domainName, queryNanos, rows.count);
+                }
+            }
+        } catch (SQLException e) {
+            // 枚举缺失会让依赖它的代码无法编译，直接中止本次生成，已有输出保持不变
+            throw new IllegalStateException("枚举数据查询失败 " + tableName + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            // 同样中止本次生成：静默跳过会让枚举文件缺失，全量模式还会把上一次的枚举当作遗留文件删除
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("枚举数据查询被中断 " + tableName, e);
+        } finally {
+            connectionPool.release(conn);
+            report.recordStep(domainName, "enum", System.nanoTime() - start);
+        }
+    }
 
-            File file = new File(enumPath);
-            if (!file.getParentFile().exists())
-                file.getParentFile().mkdirs();
+    /**
+     * 为每个映射属性生成一个静态查找表：keyProperty 对应 of(String)，其余属性对应 ofXxx(String)
+     */
+    private List<java.util.Map<String, String>> buildEnumLookups(java.util.Collection<String> propNames,
+            String keyProperty) {
+        List<java.util.Map<String, String>> lookups = new ArrayList<>();
+        for (String propName : propNames) {
+            String capitalized = propName.substring(0, 1).toUpperCase() + propName.substring(1);
+            java.util.Map<String, String> lookup = new java.util.HashMap<>();
+            lookup.put("getter", "get" + capitalized);
+            lookup.put("indexName", "BY_" + propName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase());
+            lookup.put("methodName", propName.equals(keyProperty) ? "of" : "of" + capitalized);
+            lookups.add(lookup);
+        }
+        return lookups;
+    }
 
-            try (java.io.OutputStreamWriter writer = new java.io.OutputStreamWriter(
-                    new java.io.FileOutputStream(file), java.nio.charset.StandardCharsets.UTF_8)) {
-                velocityEngine.mergeTemplate(templatePath + "/universal_enum.vm", "UTF-8", velocityContext, writer);
-            }
+    private void renderToFile(String templateName, VelocityContext velocityContext, String filePath) {
+        StringWriter writer = new StringWriter();
+        templateCache.merge(templateName, velocityContext, writer);
+        writeFile(filePath, writer.toString());
+    }
+
+    private void writeFile(String filePath, String content) {
+        try {
+            OutputSink.current().write(new File(filePath), content);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("写出失败: " + filePath, e);
+        }
+    }
+
+    private String javaPath(String packageName, String className) {
+        return targetProject + "/" + packageName.replace('.', '/') + "/" + className + ".java";
+    }
+
+    private String controllerPath(String modelName) {
+        return javaPath(targetControllerPackage, modelName + "Controller");
+    }
+
+    private String servicePath(String modelName) {
+        return javaPath(targetServicePackage, modelName + "Service");
+    }
+
+    private String serviceImplPath(String modelName) {
+        return javaPath(targetServiceImplPackage, modelName + "ServiceImpl");
+    }
+
+    private String tsModelPath(String modelName) {
+        return targetProject + "/ts/model/" + modelName + ".ts";
+    }
+
+    /**
+     * 把结果集包装成按需读取的行迭代器，供模板 #foreach 逐行消费
+     */
+    private static final class ResultSetRows implements java.util.Iterator<java.util.Map<String, String>> {
+        private final ResultSet rs;
+        private final java.util.Map<String, String> columnMapping;
+        private Boolean hasNext;
+        private int count;
+
+        ResultSetRows(ResultSet rs, java.util.Map<String, String> columnMapping) {
+            this.rs = rs;
+            this.columnMapping = columnMapping;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                try {
+                    hasNext = rs.next();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public java.util.Map<String, String> next() {
+            if (!hasNext()) {
+                throw new java.util.NoSuchElementException();
+            }
+            hasNext = null;
+            count++;
+            java.util.Map<String, String> row = new java.util.HashMap<>();
+            try {
+                for (java.util.Map.Entry<String, String> entry : columnMapping.entrySet()) {
+                    row.put(entry.getKey(), rs.getString(entry.getValue()));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return row;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.alisa.mbg;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/*
+ * 把全部输出流式写入一个 ZIP / JAR 包：每个文件渲染完成即写成一个条目，不在内存或磁盘上另存一份目录树。
+ * 条目路径相对于 root（通常是 targetProject 所在的输出目录）。
+ * 先写到同目录下的临时文件，commit() 时改名为目标文件，失败时删除临时文件。
+ */
+final class ZipSink extends OutputSink {
+
+    private final Path archive;
+    private final Path root;
+    private final Path temp;
+    private final ZipOutputStream out;
+    private final Set<String> entries = new HashSet<>();
+
+    ZipSink(File archive, File root) throws IOException {
+        this.archive = archive.toPath().toAbsolutePath().normalize();
+        this.root = root.toPath().toAbsolutePath().normalize();
+        Path directory = this.archive.getParent();
+        Files.createDirectories(directory);
+        this.temp = newTempFile(directory, this.archive.getFileName().toString());
+        this.out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024));
+    }
+
+    @Override
+    protected synchronized boolean writeBytes(File file, byte[] bytes) throws IOException {
+        String name = entryName(file);
+        // 流式写出的条目无法覆盖，同一文件写两次说明生成逻辑有误
+        if (!entries.add(name)) {
+            throw new IOException("重复的输出文件: " + name);
+        }
+        out.putNextEntry(new ZipEntry(name));
+        out.write(bytes);
+        out.closeEntry();
+        return true;
+    }
+
+    @Override
+    synchronized boolean exists(File file) {
+        return entries.contains(entryName(file));
+    }
+
+    @Override
+    synchronized void commit() throws IOException {
+        out.close();
+        replace(temp, archive);
+    }
+
+    @Override
+    synchronized void abort() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 临时文件随后删除，关闭失败无需处理
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // 清理失败只留下隐藏的临时文件，不影响目标文件
+        }
+    }
+
+    private String entryName(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        Path relative = path.startsWith(root) ? root.relativize(path) : path.getRoot().relativize(path);
+        return relative.toString().replace('\\', '/');
+    }
+}